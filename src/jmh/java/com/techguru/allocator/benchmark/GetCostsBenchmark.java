@@ -0,0 +1,89 @@
+package com.techguru.allocator.benchmark;
+
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.CostCurve;
+import com.techguru.allocator.pojo.ServerTypeFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GetCostsBenchmark - {@link Allocator#getCosts(Integer, Integer, Double)} in the cpus only, price only and
+ * cpus and price modes, a 10,000 point {@link Allocator#getCostCurves(Integer, int, int)}, a cross-region
+ * allocation and an allocation limited by a server type filter, on a single thread
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@Threads(1)
+public class GetCostsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int regions;
+
+    @Param({"8", "32"})
+    private int serverTypes;
+
+    private Allocator allocator;
+    private ServerTypeFilter filter;
+
+    @Setup
+    public void setup() throws AllocatorException {
+        this.allocator = new Allocator(SyntheticCatalog.serverTypesJson(this.serverTypes), SyntheticCatalog.regionCostPerHourJson(this.regions, this.serverTypes));
+        this.filter = ServerTypeFilter.builder().minCpus(4).excludedServerTypes(Collections.singleton("type-" + (this.serverTypes - 1))).build();
+    }
+
+    @Benchmark
+    public String byCpus() throws AllocatorException {
+        return this.allocator.getCosts(24, 115, null);
+    }
+
+    @Benchmark
+    public String byPrice() throws AllocatorException {
+        return this.allocator.getCosts(8, null, 29.0);
+    }
+
+    @Benchmark
+    public String byCpusAndPrice() throws AllocatorException {
+        return this.allocator.getCosts(7, 214, 95.0);
+    }
+
+    @Benchmark
+    public List<CostCurve> costCurves() throws AllocatorException {
+        return this.allocator.getCostCurves(24, 1, 10000);
+    }
+
+    @Benchmark
+    public String acrossRegions() throws AllocatorException {
+        return this.allocator.getCostsAcrossRegions(24, 100000, null, null);
+    }
+
+    @Benchmark
+    public String filtered() throws AllocatorException {
+        return this.allocator.getCosts(24, 115, null, this.filter);
+    }
+
+    /**
+     * The same benchmarks with concurrent callers sharing one allocator
+     */
+    @Threads(4)
+    public static class Concurrent extends GetCostsBenchmark {
+    }
+}
@@ -0,0 +1,79 @@
+package com.techguru.allocator.benchmark;
+
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.catalog.CatalogFile;
+import com.techguru.allocator.exception.AllocatorException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadBenchmark - Construction of an {@link Allocator} from json strings, input streams and a catalog file
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class LoadBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int regions;
+
+    @Param({"8", "32"})
+    private int serverTypes;
+
+    private String serverTypesJson;
+    private String regionCostPerHourJson;
+    private byte[] serverTypesBytes;
+    private byte[] regionCostPerHourBytes;
+    private Path catalogFile;
+
+    @Setup
+    public void setup() throws AllocatorException, IOException {
+        this.serverTypesJson = SyntheticCatalog.serverTypesJson(this.serverTypes);
+        this.regionCostPerHourJson = SyntheticCatalog.regionCostPerHourJson(this.regions, this.serverTypes);
+        this.serverTypesBytes = this.serverTypesJson.getBytes(StandardCharsets.UTF_8);
+        this.regionCostPerHourBytes = this.regionCostPerHourJson.getBytes(StandardCharsets.UTF_8);
+        this.catalogFile = Files.createTempFile("catalog", ".bin");
+        CatalogFile.compile(new StringReader(this.serverTypesJson), new StringReader(this.regionCostPerHourJson), this.catalogFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.catalogFile);
+    }
+
+    @Benchmark
+    public Allocator fromString() throws AllocatorException {
+        return new Allocator(this.serverTypesJson, this.regionCostPerHourJson);
+    }
+
+    @Benchmark
+    public Allocator fromInputStream() throws AllocatorException {
+        return new Allocator(new ByteArrayInputStream(this.serverTypesBytes), new ByteArrayInputStream(this.regionCostPerHourBytes));
+    }
+
+    @Benchmark
+    public Allocator fromCatalogFile() throws AllocatorException {
+        return Allocator.fromCatalogFile(this.catalogFile);
+    }
+}
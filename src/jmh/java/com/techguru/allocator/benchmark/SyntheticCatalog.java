@@ -0,0 +1,48 @@
+package com.techguru.allocator.benchmark;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * SyntheticCatalog - Generates server types and region cost per hour jsons of a given size for the benchmarks
+ */
+final class SyntheticCatalog {
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * Server types json with cpus growing by powers of two
+     */
+    static String serverTypesJson(int serverTypes) {
+        StringBuilder json = new StringBuilder("{");
+        for (int t = 0; t < serverTypes; t++) {
+            if (t > 0) json.append(',');
+            json.append("\"type-").append(t).append("\":").append(cpus(t));
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Region cost per hour json where every region has every server type at a random cost per hour per CPU
+     */
+    static String regionCostPerHourJson(int regions, int serverTypes) {
+        Random random = new Random(regions * 31L + serverTypes);
+        StringBuilder json = new StringBuilder("{");
+        for (int r = 0; r < regions; r++) {
+            if (r > 0) json.append(',');
+            json.append("\"region-").append(r).append("\":{");
+            for (int t = 0; t < serverTypes; t++) {
+                if (t > 0) json.append(',');
+                double price = cpus(t) * (0.05 + random.nextDouble() * 0.03);
+                json.append("\"type-").append(t).append("\":").append(String.format(Locale.US, "%.3f", price));
+            }
+            json.append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    private static int cpus(int serverType) {
+        return (1 << (serverType % 7)) * (1 + serverType / 7);
+    }
+}
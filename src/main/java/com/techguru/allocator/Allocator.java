@@ -1,31 +1,82 @@
 package com.techguru.allocator;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.techguru.allocator.catalog.Allocation;
+import com.techguru.allocator.catalog.Catalog;
+import com.techguru.allocator.catalog.CatalogFile;
+import com.techguru.allocator.catalog.CatalogReader;
+import com.techguru.allocator.catalog.HourlyPrices;
+import com.techguru.allocator.catalog.OptimalTable;
+import com.techguru.allocator.catalog.RegionCatalog;
+import com.techguru.allocator.catalog.RegionTags;
+import com.techguru.allocator.catalog.ServerTypeIndex;
+import com.techguru.allocator.constants.AllocationMode;
+import com.techguru.allocator.constants.AllocationStrategy;
 import com.techguru.allocator.exception.AllocatorException;
-import com.techguru.allocator.pojo.AllocatedServers;
+import com.techguru.allocator.metrics.AllocatorMetrics;
+import com.techguru.allocator.metrics.LoadEvent;
+import com.techguru.allocator.pojo.AllocationRequest;
+import com.techguru.allocator.pojo.AllocatorConfig;
+import com.techguru.allocator.pojo.CacheStats;
+import com.techguru.allocator.pojo.CostCurve;
+import com.techguru.allocator.pojo.Reservation;
 import com.techguru.allocator.pojo.Result;
+import com.techguru.allocator.pojo.ServerTypeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.techguru.allocator.constants.AllocatorConstants.*;
-import static com.techguru.allocator.util.AllocatorUtils.*;
-
+import static com.techguru.allocator.util.AllocatorUtils.dollarValue;
+import static com.techguru.allocator.util.AllocatorUtils.round;
 /**
  * Allocator - Master class which allocates server resources
  */
 public class Allocator {
     private static final Logger logger = LoggerFactory.getLogger(Allocator.class);
+    private static final Gson gson = new Gson();
 
-    private Map<String, Integer> serverTypes;
-    private Map<String, LinkedHashMap<String, Double>> regionCostPerHourPerCpu;
+    private final AllocatorConfig config;
+    private final RegionExecutor regionExecutor;
+    private final ResultCache resultCache;
+    private final AllocatorMetrics metrics;
+    private final Instrumentation instrumentation;
+    private final AsyncExecutor asyncExecutor;
+    private final Object updateLock = new Object();
+    private final Map<Long, Inventory.Hold> reservations = new ConcurrentHashMap<>();
+    private final AtomicLong reservationIds = new AtomicLong();
+    private volatile Catalog catalog;
+    private volatile HourlyPrices hourlyPrices = HourlyPrices.none();
+    private volatile RegionTags regionTags = RegionTags.none();
+    private Inventory inventory;
 
-    private Allocator() {
+    /**
+     * Instantiates a new Allocator.
+     *
+     * @param serverTypesJsonInputStream       the server types json input stream
+     * @param regionCostPerHourJsonInputStream the region cost per hour json input stream
+     * @throws AllocatorException the allocator exception
+     */
+    public Allocator(InputStream serverTypesJsonInputStream, InputStream regionCostPerHourJsonInputStream) throws AllocatorException {
+        this(serverTypesJsonInputStream, regionCostPerHourJsonInputStream, AllocatorConfig.builder().build());
     }
 
     /**
@@ -33,9 +84,11 @@ public class Allocator {
      *
      * @param serverTypesJsonInputStream       the server types json input stream
      * @param regionCostPerHourJsonInputStream the region cost per hour json input stream
+     * @param config                           the allocator config
      * @throws AllocatorException the allocator exception
      */
-    public Allocator(InputStream serverTypesJsonInputStream, InputStream regionCostPerHourJsonInputStream) throws AllocatorException {
+    public Allocator(InputStream serverTypesJsonInputStream, InputStream regionCostPerHourJsonInputStream, AllocatorConfig config) throws AllocatorException {
+        this(config);
         this.load(serverTypesJsonInputStream, regionCostPerHourJsonInputStream);
     }
 
@@ -47,59 +100,307 @@ public class Allocator {
      * @throws AllocatorException the allocator exception
      */
     public Allocator(String serverTypesJson, String regionCostPerHourJson) throws AllocatorException {
+        this(serverTypesJson, regionCostPerHourJson, AllocatorConfig.builder().build());
+    }
+
+    /**
+     * Instantiates a new Allocator.
+     *
+     * @param serverTypesJson       the server types json
+     * @param regionCostPerHourJson the region cost per hour json
+     * @param config                the allocator config
+     * @throws AllocatorException the allocator exception
+     */
+    public Allocator(String serverTypesJson, String regionCostPerHourJson, AllocatorConfig config) throws AllocatorException {
+        this(config);
         this.load(serverTypesJson, regionCostPerHourJson);
     }
 
+    /**
+     * Instantiates a new Allocator from a memory-mapped catalog file.
+     */
+    private Allocator(Path catalogFile, AllocatorConfig config) throws AllocatorException {
+        this(config);
+        this.load(catalogFile);
+    }
+
+    /**
+     * Sets up the executors, cache and metrics of the config, before any catalog is loaded
+     */
+    private Allocator(AllocatorConfig config) {
+        this.config = config;
+        this.regionExecutor = new RegionExecutor(config);
+        this.resultCache = config.getCacheSize() > 0 ? new ResultCache(config.getCacheSize()) : null;
+        this.metrics = config.getMetrics();
+        this.instrumentation = new Instrumentation(config.getMetrics());
+        this.asyncExecutor = new AsyncExecutor(config);
+    }
+
+    /**
+     * Creates an Allocator from a catalog file compiled with {@link CatalogFile#compile}. The file is memory-mapped,
+     * so startup does not depend on the # of server types in the regions and the prices stay off-heap.
+     *
+     * @param catalogFile the catalog file
+     * @return the allocator
+     * @throws AllocatorException the allocator exception
+     */
+    public static Allocator fromCatalogFile(Path catalogFile) throws AllocatorException {
+        return new Allocator(catalogFile, AllocatorConfig.builder().build());
+    }
+
+    /**
+     * Creates an Allocator from a catalog file compiled with {@link CatalogFile#compile}. The file is memory-mapped,
+     * so startup does not depend on the # of server types in the regions and the prices stay off-heap.
+     * With the optimal strategy the table of a region is built on its first request.
+     *
+     * @param catalogFile the catalog file
+     * @param config      the allocator config
+     * @return the allocator
+     * @throws AllocatorException the allocator exception
+     */
+    public static Allocator fromCatalogFile(Path catalogFile, AllocatorConfig config) throws AllocatorException {
+        return new Allocator(catalogFile, config);
+    }
+
     /**
      * Validation: 1. If input is a json 2. Input serverTypes json contains all server types contained in regionCostPerHour json
-     * Calculation: Created a new map similar to regionCostPerHour json where srever-types in each region are sorted based on 'cost per hour per CPU'
-     * Initialization: Assign the calculated regionCostPerHourPerCpu json and serverTypes json to object fields
+     * Calculation: Compile a catalog of ordinals and primitive arrays where srever-types in each region are sorted based on 'cost per hour per CPU'
+     * Initialization: Assign the compiled catalog to the object field
+     * Both jsons are streamed token by token, so validation and compilation happen in a single pass over the input.
      */
     private void load(String serverTypesJson, String regionCostPerHourJson) throws AllocatorException {
-        Gson gson = new Gson();
+        load(new StringReader(serverTypesJson), new StringReader(regionCostPerHourJson));
+    }
+
+    private void load(InputStream serverTypesJsonInputStream, InputStream regionCostPerHourJsonInputStream) throws AllocatorException {
+        load(new InputStreamReader(serverTypesJsonInputStream, StandardCharsets.UTF_8), new InputStreamReader(regionCostPerHourJsonInputStream, StandardCharsets.UTF_8));
+    }
+
+    private void load(Reader serverTypesJson, Reader regionCostPerHourJson) throws AllocatorException {
+        LoadEvent event = new LoadEvent();
+        long start = System.nanoTime();
+        event.begin();
+        loaded(CatalogReader.read(serverTypesJson, regionCostPerHourJson, optimalMaxCpus()), start, event);
+    }
+
+    private void load(Path catalogFile) throws AllocatorException {
+        LoadEvent event = new LoadEvent();
+        long start = System.nanoTime();
+        event.begin();
+        loaded(CatalogFile.map(catalogFile, optimalMaxCpus()), start, event);
+    }
 
-        //Validation - Check if input jsons are valid
-        validate(serverTypesJson);
-        validate(regionCostPerHourJson);
+    private void loaded(Catalog loaded, long start, LoadEvent event) {
+        event.end();
+        this.metrics.onLoad(System.nanoTime() - start, loaded.getRegionCount(), loaded.getServerTypeCount(), loaded.getVersion());
+        if (event.shouldCommit()) {
+            event.regions = loaded.getRegionCount();
+            event.serverTypes = loaded.getServerTypeCount();
+            event.commit();
+        }
+        this.catalog = loaded;
+        this.inventory = new Inventory(loaded.getServerTypeCount());
+    }
+
+    /**
+     * Applies changed prices and publishes a new immutable catalog with an atomic swap.
+     * Only the changed regions are re-sorted, the other regions are shared with the previous catalog.
+     * Concurrent getCosts calls never block and see either the previous or the updated catalog, never a mix.
+     *
+     * @param regionCostPerHour the changed cost per hour of server types in each region, a null cost removes the server type from the region
+     * @throws AllocatorException if a change refers to an unknown server type, in which case no change is applied
+     */
+    public void updatePrices(Map<String, ? extends Map<String, Double>> regionCostPerHour) throws AllocatorException {
+        long start = System.nanoTime();
+        Catalog updated;
+        synchronized (this.updateLock) {
+            updated = this.catalog.withPrices(regionCostPerHour);
+            this.catalog = updated;
+        }
+        if (this.resultCache != null) this.resultCache.invalidate();
+        this.metrics.onCatalogUpdate(updated.getVersion(), System.nanoTime() - start);
+        logger.info(LOG_UPDATE_PRICES, regionCostPerHour.size(), updated.getVersion());
+    }
+
+    /**
+     * Sets the cost per hour series of server types in regions, replacing the previous series. Every series has the
+     * same length and repeats from hour 0, pairs without a series cost their catalog price every hour. The series
+     * only price {@link #getWindowCosts(int, Integer, Integer, Double)} and are kept across price updates.
+     *
+     * @param hourlyPrices the cost per hour series of server types in each region
+     * @throws AllocatorException if a series refers to an unknown region or to a server type not priced in the region,
+     *                            has a negative price, or is not as long as the other series, in which case no series is changed
+     */
+    public void updateHourlyPrices(Map<String, ? extends Map<String, double[]>> hourlyPrices) throws AllocatorException {
+        HourlyPrices updated;
+        synchronized (this.updateLock) {
+            updated = HourlyPrices.of(this.catalog, hourlyPrices);
+            this.hourlyPrices = updated;
+        }
+        logger.info(LOG_UPDATE_HOURLY_PRICES, hourlyPrices.size(), updated.getPeriod());
+    }
 
-        this.serverTypes = gson.fromJson(serverTypesJson, new TypeToken<Map<String, Integer>>() {
-        }.getType());
-        Map<String, Map<String, Double>> regionCostPerHour = gson.fromJson(regionCostPerHourJson, new TypeToken<Map<String, Map<String, Double>>>() {
-        }.getType());
+    /**
+     * Sets the tags of regions, replacing the previous tags. The tags select the regions of
+     * {@link #getCosts(Integer, Integer, Double, ServerTypeFilter)} and are kept across price updates.
+     *
+     * @param regionTags the tags of each region
+     * @throws AllocatorException if a region is not in the catalog, in which case no tag is changed
+     */
+    public void updateRegionTags(Map<String, ? extends Collection<String>> regionTags) throws AllocatorException {
+        RegionTags updated;
+        synchronized (this.updateLock) {
+            updated = RegionTags.of(this.catalog, regionTags);
+            this.regionTags = updated;
+        }
+        logger.info(LOG_UPDATE_REGION_TAGS, regionTags.size(), updated.getTagCount());
+    }
 
-        //Validation - All server types in each region should be available in server types json
-        for (Map.Entry<String, Map<String, Double>> e1 : regionCostPerHour.entrySet()) {
+    /**
+     * Sets the remaining # of servers of server types in regions. Server types and regions without a capacity are
+     * unlimited. Capacities only bound reservations, getCosts still quotes unlimited servers.
+     *
+     * @param capacity the remaining # of servers of server types in each region, a null count makes the server type unlimited
+     * @throws AllocatorException if a capacity refers to an unknown region or server type, or is negative
+     */
+    public void updateCapacity(Map<String, ? extends Map<String, Integer>> capacity) throws AllocatorException {
+        Catalog catalog = this.catalog;
+        for (Map.Entry<String, ? extends Map<String, Integer>> e1 : capacity.entrySet()) { // for each region
             String region = e1.getKey();
-            Map<String, Double> costPerHourMap = e1.getValue();
-            for (Map.Entry<String, Double> e2 : costPerHourMap.entrySet()) {
-                String serverType = e2.getKey();
-                if (!this.serverTypes.containsKey(serverType)) {
-                    String message = "Invalid server type " + serverType + " in region " + region;
-                    throw new AllocatorException(message);
-                }
+            int regionOrdinal = catalog.getRegionOrdinal(region);
+            if (regionOrdinal < 0) throw new AllocatorException("Invalid region " + region);
+            for (Map.Entry<String, Integer> e2 : e1.getValue().entrySet()) {
+                int serverType = catalog.getServerTypeOrdinal(e2.getKey());
+                if (serverType < 0) throw new AllocatorException("Invalid server type " + e2.getKey() + " in region " + region);
+                if (e2.getValue() != null && e2.getValue() < 0) throw new AllocatorException("Invalid capacity of server type " + e2.getKey() + " in region " + region);
             }
         }
+        for (Map.Entry<String, ? extends Map<String, Integer>> e1 : capacity.entrySet()) {
+            int regionOrdinal = catalog.getRegionOrdinal(e1.getKey());
+            for (Map.Entry<String, Integer> e2 : e1.getValue().entrySet()) {
+                int capacityLeft = e2.getValue() == null ? Inventory.UNLIMITED : Math.min(e2.getValue(), Inventory.UNLIMITED - 1);
+                this.inventory.setCapacity(regionOrdinal, catalog.getServerTypeOrdinal(e2.getKey()), capacityLeft);
+            }
+        }
+    }
 
-        this.regionCostPerHourPerCpu = new LinkedHashMap<>();
-        regionCostPerHour.forEach((region, costPerHourMap) -> {
-            LinkedHashMap<String, Double> costPerHourPerCpu = costPerHourMap.entrySet().stream().sorted(Comparator.comparingDouble(e -> e.getValue() / this.serverTypes.get(e.getKey()))
-            ).collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    Map.Entry::getValue,
-                    (oldValue, newValue) -> oldValue, LinkedHashMap::new));
-            this.regionCostPerHourPerCpu.put(region, costPerHourPerCpu);
-        });
+    /**
+     * Gets the remaining # of servers of a server type in a region.
+     *
+     * @param region     the region
+     * @param serverType the server type
+     * @return the remaining # of servers, or Integer.MAX_VALUE if unlimited
+     * @throws AllocatorException if the region or server type is unknown
+     */
+    public int getRemainingCapacity(String region, String serverType) throws AllocatorException {
+        Catalog catalog = this.catalog;
+        int regionOrdinal = catalog.getRegionOrdinal(region);
+        if (regionOrdinal < 0) throw new AllocatorException("Invalid region " + region);
+        int serverTypeOrdinal = catalog.getServerTypeOrdinal(serverType);
+        if (serverTypeOrdinal < 0) throw new AllocatorException("Invalid server type " + serverType + " in region " + region);
+        return this.inventory.getRemaining(regionOrdinal, serverTypeOrdinal);
     }
 
-    private void load(InputStream serverTypesJsonInputStream, InputStream regionCostPerHourJsonInputStream) throws AllocatorException {
-        try {
-            String serverTypesJson = new String(serverTypesJsonInputStream.readAllBytes());
-            String regionCostPerHourJson = new String(regionCostPerHourJsonInputStream.readAllBytes());
-            load(serverTypesJson, regionCostPerHourJson);
-        } catch (IOException e) {
-            String message = "Exception while creating allocator";
-            throw new AllocatorException(message, e);
+    /**
+     * Allocates servers in a region against its remaining capacity and takes them from it.
+     * Servers are allocated greedily by 'cost per hour per CPU', each server type bounded by its remaining capacity.
+     * The counters of the allocated server types are taken with compare-and-set, all or nothing. If a concurrent
+     * reservation took servers in between, the servers already taken are given back and the allocation is retried
+     * against the new remaining capacity.
+     *
+     * @param region the region
+     * @param hours  the required # of hours of resources
+     * @param cpus   the required # of cpus
+     * @param price  the maximum price allowed for the allocation
+     * @return the reservation
+     * @throws AllocatorException if the region is unknown or no server can be allocated within its capacity
+     */
+    public Reservation reserve(String region, Integer hours, Integer cpus, Double price) throws AllocatorException {
+        validateRequest(hours, cpus, price);
+        Catalog catalog = this.catalog;
+        int regionOrdinal = catalog.getRegionOrdinal(region);
+        if (regionOrdinal < 0) throw new AllocatorException("Invalid region " + region);
+        RegionCatalog regionCatalog = catalog.getRegion(regionOrdinal);
+        Double targetPricePerHour = price == null ? null : price / hours;
+        Allocation allocation = new Allocation(regionCatalog.size());
+        Inventory.Hold hold;
+        do {
+            allocation.reset(regionCatalog.size());
+            allocateWithinCapacity(regionCatalog, regionOrdinal, cpus, targetPricePerHour, allocation);
+            if (allocation.getTotalCpus() == 0) throw new AllocatorException("No capacity left in region " + region);
+            hold = hold(regionCatalog, regionOrdinal, allocation);
+        } while (!this.inventory.take(hold));
+
+        long id = this.reservationIds.incrementAndGet();
+        this.reservations.put(id, hold);
+        logger.info(LOG_RESERVE, allocation.getTotalCpus(), region, id);
+        return Reservation.builder().id(id).region(region).totalCpus(allocation.getTotalCpus())
+                .totalCost(dollarValue(round(allocation.getCost(hours), 2)))
+                .servers(RegionAllocations.servers(catalog, regionOrdinal, allocation)).build();
+    }
+
+    /**
+     * Gives the servers of a reservation back to the capacity of its region. Releasing a reservation more than once
+     * has no effect.
+     *
+     * @param reservation the reservation
+     * @return true if the servers were given back, false if the reservation was already released
+     */
+    public boolean release(Reservation reservation) {
+        Inventory.Hold hold = this.reservations.remove(reservation.getId());
+        if (hold == null) return false;
+        this.inventory.giveBack(hold);
+        logger.info(LOG_RELEASE, reservation.getId());
+        return true;
+    }
+
+    /**
+     * Allocates servers of a region by the mode selected with the non null parameters, each server type bounded by
+     * its remaining capacity
+     */
+    private void allocateWithinCapacity(RegionCatalog region, int regionOrdinal, Integer cpus, Double targetPricePerHour, Allocation allocation) {
+        long targetCpus = cpus == null ? Long.MAX_VALUE : cpus;
+        double budget = targetPricePerHour == null ? Double.POSITIVE_INFINITY : targetPricePerHour;
+        for (int i = 0; i < region.size(); i++) { // for each server in region
+            int n = region.getCpus(i);
+            double cost = region.getPrice(i);
+            long allocated = Math.min(this.inventory.getRemaining(regionOrdinal, region.getServerType(i)), targetCpus / n);
+            if (budget != Double.POSITIVE_INFINITY) allocated = Math.min(allocated, (long) (budget / cost));
+            if (allocated > 0) {
+                allocation.add(i, (int) allocated, n, cost);
+                targetCpus -= allocated * n;
+                budget -= allocated * cost;
+            }
+        }
+    }
+
+    private static Inventory.Hold hold(RegionCatalog region, int regionOrdinal, Allocation allocation) {
+        int servers = 0;
+        for (int i = 0; i < allocation.size(); i++) {
+            if (allocation.getCount(i) > 0) servers++;
+        }
+        int[] serverTypes = new int[servers];
+        int[] counts = new int[servers];
+        for (int i = 0, h = 0; i < allocation.size(); i++) {
+            if (allocation.getCount(i) > 0) {
+                serverTypes[h] = region.getServerType(i);
+                counts[h++] = allocation.getCount(i);
+            }
         }
+        return new Inventory.Hold(regionOrdinal, serverTypes, counts);
+    }
+
+    /**
+     * Gets the version of the current catalog, incremented by every price update.
+     *
+     * @return the catalog version
+     */
+    public long getCatalogVersion() {
+        return this.catalog.getVersion();
+    }
+
+    private int optimalMaxCpus() {
+        return this.config.getAllocationStrategy() == AllocationStrategy.OPTIMAL ? this.config.getOptimalMaxCpus() : 0;
     }
 
     /**
@@ -112,116 +413,707 @@ public class Allocator {
      * @throws AllocatorException the allocator exception
      */
     public String getCosts(Integer hours, Integer cpus, Double price) throws AllocatorException {
-        Gson gson = new Gson();
-        List<Result> resultList = new ArrayList<>();
-        if (hours == null) throw new AllocatorException("Hours cannot be null");
-        if (cpus == null && price == null) throw new AllocatorException("Cpus and Price cannot be null");
+        RegionAllocations allocations = allocate(hours, cpus, price);
+        return gson.toJson(allocations.toResults(hours));
+    }
+
+    /**
+     * Allocates server resources based on the user input parameters and writes the json output to the writer,
+     * one region at a time. The output is the same as {@link #getCosts(Integer, Integer, Double)}.
+     * The writer is not flushed nor closed.
+     *
+     * @param hours  the required # of hours of resources
+     * @param cpus   the required # of cpus
+     * @param price  the maximum price allowed for the allocation
+     * @param writer the writer
+     * @throws AllocatorException the allocator exception
+     */
+    public void getCosts(Integer hours, Integer cpus, Double price, Writer writer) throws AllocatorException {
+        RegionAllocations allocations = allocate(hours, cpus, price);
+        try {
+            new ResultWriter(writer).write(allocations, hours);
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while writing costs", e);
+        }
+    }
+
+    /**
+     * Allocates server resources based on the user input parameters and writes the json output to the output stream
+     * as UTF-8, one region at a time. The output is the same as {@link #getCosts(Integer, Integer, Double)}.
+     * The output stream is flushed but not closed.
+     *
+     * @param hours        the required # of hours of resources
+     * @param cpus         the required # of cpus
+     * @param price        the maximum price allowed for the allocation
+     * @param outputStream the output stream
+     * @throws AllocatorException the allocator exception
+     */
+    public void getCosts(Integer hours, Integer cpus, Double price, OutputStream outputStream) throws AllocatorException {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        getCosts(hours, cpus, price, writer);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while writing costs", e);
+        }
+    }
+
+    /**
+     * Allocates server resources for a window of hours starting at an hour of the hourly price series, with the same
+     * output as {@link #getCosts(Integer, Integer, Double)}. Server types are ranked by their cost per cpu over the
+     * window and allocated greedily, whatever the allocation strategy. The cost of a window is looked up from prefix
+     * sums and the ranking of a window is reused by later requests, so long windows cost no more than short ones.
+     * Without hourly price series the output is the same as {@link #getCosts(Integer, Integer, Double)}.
+     *
+     * @param startHour the first hour of the window, hour 0 being the first price of the series
+     * @param hours     the required # of hours of resources
+     * @param cpus      the required # of cpus
+     * @param price     the maximum price allowed for the allocation over the window
+     * @return the costs, cpus if allocated for each region
+     * @throws AllocatorException the allocator exception
+     */
+    public String getWindowCosts(int startHour, Integer hours, Integer cpus, Double price) throws AllocatorException {
+        validateRequest(hours, cpus, price);
+        if (startHour < 0) throw new AllocatorException("Invalid start hour " + startHour);
+        if (hours <= 0) throw new AllocatorException("Invalid hours " + hours);
+        logger.info(LOG_ALLOCATE_WINDOW, startHour, hours);
+
+        RegionAllocations allocations = this.instrumentation.run(AllocationMode.of(cpus, price), scan -> {
+            Catalog catalog = this.catalog;
+            HourlyPrices.Window window = this.hourlyPrices.getWindow(catalog, startHour, hours);
+            Double targetPricePerHour = price == null ? null : price / hours;
+            RegionAllocations computed = new RegionAllocations(catalog);
+            this.regionExecutor.run(catalog.getRegionCount(), (from, to) -> {
+                Allocation allocation = new Allocation(catalog.getMaxRegionSize());
+                for (int r = from; r < to; r++) { // for each region
+                    RegionCatalog region = catalog.getRegion(r);
+                    allocation.reset(region.size());
+                    allocateInWindow(region, window, r, cpus, targetPricePerHour, allocation);
+                    computed.set(r, allocation);
+                }
+            });
+            scan.all(catalog);
+            return computed;
+        });
+        return gson.toJson(allocations.toResults(hours));
+    }
+
+    /**
+     * Allocates server resources limited to the server types and regions of a filter, with the same output as
+     * {@link #getCosts(Integer, Integer, Double)} for the regions kept. Server types are allocated greedily whatever
+     * the allocation strategy, skipping those filtered out. The filter is compiled into bitsets over the server type
+     * and region ordinals from the indexes of the catalog, so no catalog is rebuilt per filter.
+     *
+     * @param hours  the required # of hours of resources
+     * @param cpus   the required # of cpus
+     * @param price  the maximum price allowed for the allocation
+     * @param filter the server types and regions allocated, null to keep every server type and region
+     * @return the costs, cpus if allocated for each region kept
+     * @throws AllocatorException if the request or the filter is not valid
+     */
+    public String getCosts(Integer hours, Integer cpus, Double price, ServerTypeFilter filter) throws AllocatorException {
+        validateRequest(hours, cpus, price);
+        ServerTypeFilter kept = filter == null ? ServerTypeFilter.builder().build() : filter;
+        Integer minCpus = kept.getMinCpus();
+        Integer maxCpus = kept.getMaxCpus();
+        if (minCpus != null && maxCpus != null && minCpus > maxCpus) throw new AllocatorException("Invalid cpu range " + minCpus + " to " + maxCpus);
+
+        Catalog catalog = this.catalog;
+        long[] regions = kept.getRegionTags() == null || kept.getRegionTags().isEmpty() ? null : this.regionTags.select(kept.getRegionTags());
+        RegionAllocations allocations = this.instrumentation.run(AllocationMode.of(cpus, price), scan -> {
+            long[] serverTypes = catalog.getServerTypeIndex().select(minCpus, maxCpus, kept.getServerTypes(), kept.getExcludedServerTypes());
+            int regionsEvaluated = 0;
+            long serverTypesScanned = 0;
+            for (int r = 0; r < catalog.getRegionCount(); r++) {
+                if (regions != null && !ServerTypeIndex.contains(regions, r)) continue;
+                regionsEvaluated++;
+                serverTypesScanned += catalog.getRegion(r).size();
+            }
+            logger.info(LOG_ALLOCATE_FILTERED, hours, Arrays.stream(serverTypes).map(Long::bitCount).sum(), regionsEvaluated);
+
+            Double targetPricePerHour = price == null ? null : price / hours;
+            RegionAllocations computed = new RegionAllocations(catalog);
+            this.regionExecutor.run(catalog.getRegionCount(), (from, to) -> {
+                Allocation allocation = new Allocation(catalog.getMaxRegionSize());
+                for (int r = from; r < to; r++) { // for each region kept
+                    if (regions != null && !ServerTypeIndex.contains(regions, r)) continue;
+                    RegionCatalog region = catalog.getRegion(r);
+                    allocation.reset(region.size());
+                    allocateFiltered(region, serverTypes, cpus, targetPricePerHour, allocation);
+                    computed.set(r, allocation);
+                }
+            });
+            scan.scanned(catalog, regionsEvaluated, serverTypesScanned);
+            return computed;
+        });
+        return gson.toJson(allocations.toResults(hours, regions));
+    }
+
+    /**
+     * Allocates servers in every region, or reuses the cached allocations of an equivalent request
+     */
+    private RegionAllocations allocate(Integer hours, Integer cpus, Double price) throws AllocatorException {
+        validateRequest(hours, cpus, price);
 
         if (cpus != null && price == null) logger.info(LOG_ALLOCATE_BYCPUS, cpus, hours);
         else if (cpus == null) logger.info(LOG_ALLOCATE_BYPRICE, hours, price);
         else logger.info(LOG_ALLOCATE_BYCPUS_BYPRICE, cpus, hours, price);
 
-        for (Map.Entry<String, LinkedHashMap<String, Double>> e1 : this.regionCostPerHourPerCpu.entrySet()) { // for each region
-            String region = e1.getKey();
-            LinkedHashMap<String, Double> costPerHourMap = e1.getValue();
-            AllocatedServers allocatedServers;
-            if (cpus != null && price == null)
-                allocatedServers = allocateServersByCpus(costPerHourMap, hours, cpus);
-            else if (cpus == null)
-                allocatedServers = allocatedServersByPrice(costPerHourMap, hours, price);
-            else
-                allocatedServers = allocatedServersByCpusAndPrice(costPerHourMap, hours, cpus, price);
-            Result result = Result.builder().region(region).totalCpus(allocatedServers.getTotalCpus()).totalCost(dollarValue(allocatedServers.getTotalCost())).servers(allocatedServers.getAllocatedServersList()).build();
-            resultList.add(result);
+        return this.instrumentation.run(AllocationMode.of(cpus, price), scan -> {
+            Catalog catalog = this.catalog;
+            Double targetPricePerHour = price == null ? null : price / hours;
+            ResultCache.Key key = this.resultCache == null ? null : ResultCache.key(cpus, targetPricePerHour);
+            RegionAllocations cached = key == null ? null : this.resultCache.get(key, catalog);
+            if (cached != null) {
+                scan.cacheHit(catalog);
+                return cached;
+            }
+            RegionAllocations computed = new RegionAllocations(catalog);
+            this.regionExecutor.run(catalog.getRegionCount(), (from, to) -> {
+                Allocation allocation = new Allocation(catalog.getMaxRegionSize());
+                for (int r = from; r < to; r++) { // for each region
+                    RegionCatalog region = catalog.getRegion(r);
+                    allocation.reset(region.size());
+                    allocate(region, cpus, targetPricePerHour, allocation);
+                    computed.set(r, allocation);
+                }
+            });
+            if (key != null) this.resultCache.put(key, computed);
+            scan.all(catalog);
+            return computed;
+        });
+    }
+
+    /**
+     * Allocates server resources based on the user input parameters and returns only the K regions with the lowest
+     * total cost, sorted ascending by total cost. Regions where no server can be allocated are left out.
+     * For cpus only requests the regions are visited in ascending order of their best 'cost per hour per CPU' and a
+     * region is skipped when the lower bound of its cost cannot beat the K-th best allocation so far, so most
+     * regions are never allocated. The other modes allocate every region.
+     *
+     * @param hours the required # of hours of resources
+     * @param cpus  the required # of cpus
+     * @param price the maximum price allowed for the allocation
+     * @param k     the # of regions to return
+     * @return the costs, cpus of the cheapest regions
+     * @throws AllocatorException the allocator exception
+     */
+    public String getCheapestRegions(Integer hours, Integer cpus, Double price, int k) throws AllocatorException {
+        validateRequest(hours, cpus, price);
+        if (k <= 0) throw new AllocatorException("Region count must be positive");
+        logger.info(LOG_ALLOCATE_CHEAPEST, k);
+
+        AllocationMode mode = AllocationMode.of(cpus, price);
+        TopRegions topRegions = this.instrumentation.run(mode, scan -> {
+            Catalog catalog = this.catalog;
+            Double targetPricePerHour = price == null ? null : price / hours;
+            TopRegions top = new TopRegions(catalog, hours, k);
+            RegionAllocations cached = this.resultCache == null ? null : this.resultCache.get(ResultCache.key(cpus, targetPricePerHour), catalog);
+            if (cached != null) {
+                for (int r = 0; r < catalog.getRegionCount(); r++) {
+                    top.offer(r, cached);
+                }
+                scan.cacheHit(catalog);
+                return top;
+            }
+
+            Allocation allocation = new Allocation(catalog.getMaxRegionSize());
+            int regionsEvaluated = 0;
+            long serverTypesScanned = 0L;
+            for (int rank = 0; rank < catalog.getRegionCount(); rank++) { // for each region, cheapest cpu first
+                int r = catalog.getRegionByCostPerCpu(rank);
+                RegionCatalog region = catalog.getRegion(r);
+                if (mode == AllocationMode.BY_CPUS) {
+                    //Pruning - An allocation leaves fewer cpus than the smallest server type unallocated, so it costs at least
+                    //the best cost per cpu times the remaining cpus. The catalog wide bound only grows with the rank.
+                    double worst = top.getWorstTotalCost();
+                    if (region.size() == 0 || exceeds(region.getBestCostPerCpu() * Math.max(0, cpus - catalog.getMaxMinCpus() + 1) * hours, worst)) break;
+                    if (exceeds(region.getBestCostPerCpu() * Math.max(region.getMinCpus(), cpus - region.getMinCpus() + 1) * hours, worst)) continue;
+                }
+                allocation.reset(region.size());
+                allocate(region, cpus, targetPricePerHour, allocation);
+                top.offer(r, allocation);
+                regionsEvaluated++;
+                serverTypesScanned += region.size();
+            }
+            scan.scanned(catalog, regionsEvaluated, serverTypesScanned);
+            return top;
+        });
+        return gson.toJson(topRegions.toResults());
+    }
+
+    /**
+     * Allocates server resources across regions based on the user input parameters and returns a single mix of
+     * servers, with the servers used in each region. Every (region, server type) pair is a candidate and the pairs are
+     * taken greedily in ascending 'cost per hour per CPU' across all regions, with the same rule as the greedy
+     * allocation of a single region, whatever the allocation strategy. A region never gets more cpus than its cap.
+     *
+     * @param hours         the required # of hours of resources
+     * @param cpus          the required # of cpus
+     * @param price         the maximum price allowed for the allocation
+     * @param regionCpuCaps the maximum # of cpus allocated in each region, null or missing regions for no cap
+     * @return the costs, cpus allocated in total and in each region used
+     * @throws AllocatorException if the request is not valid or a cap refers to an unknown region or is negative
+     */
+    public String getCostsAcrossRegions(Integer hours, Integer cpus, Double price, Map<String, Integer> regionCpuCaps) throws AllocatorException {
+        validateRequest(hours, cpus, price);
+        Catalog catalog = this.catalog;
+        int[] caps = new int[catalog.getRegionCount()];
+        Arrays.fill(caps, CrossRegionAllocation.UNCAPPED);
+        if (regionCpuCaps != null) {
+            for (Map.Entry<String, Integer> cap : regionCpuCaps.entrySet()) {
+                int regionOrdinal = catalog.getRegionOrdinal(cap.getKey());
+                if (regionOrdinal < 0) throw new AllocatorException("Invalid region " + cap.getKey());
+                if (cap.getValue() != null && cap.getValue() < 0) throw new AllocatorException("Invalid cpu cap of region " + cap.getKey());
+                if (cap.getValue() != null) caps[regionOrdinal] = Math.min(cap.getValue(), CrossRegionAllocation.UNCAPPED - 1);
+            }
         }
-        return gson.toJson(resultList);
+        logger.info(LOG_ALLOCATE_ACROSS_REGIONS, regionCpuCaps == null ? 0 : regionCpuCaps.size());
+
+        CrossRegionAllocation allocation = this.instrumentation.run(AllocationMode.of(cpus, price), scan -> {
+            CrossRegionAllocation computed = new CrossRegionAllocation(catalog);
+            computed.allocate(cpus, price == null ? null : price / hours, caps);
+            scan.scanned(catalog, computed.getRegionsAllocated(), computed.getServerTypesScanned());
+            return computed;
+        });
+        return gson.toJson(allocation.toResult(hours));
     }
 
     /**
-     * Allocation - Allocate servers in each region by
-     *      1.  Hours
-     *      2.  Cpus
+     * Whether a lower bound of a total cost is still above the limit once rounded to cents, with a margin for the
+     * rounding of the sum of the server prices against the product of the bound
+     */
+    private static boolean exceeds(double lowerBound, double limit) {
+        return lowerBound - Math.ulp(lowerBound) * 64 > limit + 0.005;
+    }
+
+    /**
+     * Allocates server resources by cpus for every # of cpus of a range and returns the curve of each region, in
+     * catalog order. Each point is the total cpus and the total cost rounded to cents of
+     * {@link #getCosts(Integer, Integer, Double)} for that # of cpus, and the servers of a point are the ones of that
+     * call. Points are derived from tables built once per region instead of allocating every point, greedy points
+     * as the servers of the first server type plus a table of the greedy allocations of the remainders, optimal
+     * points from the optimal table.
+     *
+     * @param hours    the required # of hours of resources
+     * @param fromCpus the first # of cpus of the range
+     * @param toCpus   the last # of cpus of the range, inclusive
+     * @return the cost curve of each region
+     * @throws AllocatorException the allocator exception
+     */
+    public List<CostCurve> getCostCurves(Integer hours, int fromCpus, int toCpus) throws AllocatorException {
+        validateRequest(hours, toCpus, null);
+        if (fromCpus <= 0 || toCpus < fromCpus) throw new AllocatorException("Invalid cpu range " + fromCpus + " to " + toCpus);
+        logger.info(LOG_ALLOCATE_CURVE, fromCpus, toCpus, hours);
+
+        return this.instrumentation.run(AllocationMode.BY_CPUS, scan -> {
+            Catalog catalog = this.catalog;
+            int points = toCpus - fromCpus + 1;
+            CostCurve[] curves = new CostCurve[catalog.getRegionCount()];
+            this.regionExecutor.run(catalog.getRegionCount(), (from, to) -> {
+                for (int r = from; r < to; r++) { // for each region
+                    RegionCatalog region = catalog.getRegion(r);
+                    int[] totalCpus = new int[points];
+                    double[] totalCost = new double[points];
+                    OptimalTable optimalTable = region.getOptimalTable();
+                    if (optimalTable != null) optimalTable.sweepByCpus(fromCpus, hours, totalCpus, totalCost);
+                    else sweepServersByCpus(region, fromCpus, hours, totalCpus, totalCost);
+                    for (int p = 0; p < points; p++) {
+                        totalCost[p] = round(totalCost[p], 2);
+                    }
+                    curves[r] = CostCurve.builder().region(catalog.getRegionName(r)).fromCpus(fromCpus).totalCpus(totalCpus).totalCost(totalCost).build();
+                }
+            });
+            scan.all(catalog);
+            return Arrays.asList(curves);
+        });
+    }
+
+    /**
+     * Allocates server resources for a batch of requests in a single pass over the regions.
+     * Each region is visited once for the whole batch and the output is a json array holding the costs of each
+     * request, in request order, in the same format as {@link #getCosts(Integer, Integer, Double)}.
+     *
+     * @param requests the allocation requests
+     * @return the costs, cpus if allocated for each region of each request
+     * @throws AllocatorException the allocator exception
+     */
+    public String getCosts(List<AllocationRequest> requests) throws AllocatorException {
+        RegionAllocations[] allocations = allocate(requests);
+        List<List<Result>> resultLists = new ArrayList<>(allocations.length);
+        for (int q = 0; q < allocations.length; q++) {
+            resultLists.add(allocations[q].toResults(requests.get(q).getHours()));
+        }
+        return gson.toJson(resultLists);
+    }
+
+    /**
+     * Allocates server resources for a batch of requests in a single pass over the regions, like
+     * {@link #getCosts(List)}, and returns the output of each request separately. Each output is the same as
+     * {@link #getCosts(Integer, Integer, Double)} for that request.
+     *
+     * @param requests the allocation requests
+     * @return the costs, cpus if allocated for each region, one json per request in request order
+     * @throws AllocatorException the allocator exception
+     */
+    public List<String> getCostsPerRequest(List<AllocationRequest> requests) throws AllocatorException {
+        RegionAllocations[] allocations = allocate(requests);
+        List<String> results = new ArrayList<>(allocations.length);
+        for (int q = 0; q < allocations.length; q++) {
+            results.add(gson.toJson(allocations[q].toResults(requests.get(q).getHours())));
+        }
+        return results;
+    }
+
+    /**
+     * Allocates server resources for a batch of requests in a single pass over the regions, like
+     * {@link #getCostsPerRequest(List)}, and writes the output of each request to the writer followed by a newline,
+     * without building result objects. Nothing is written if a request is not valid. The writer is not flushed nor closed.
+     *
+     * @param requests the allocation requests
+     * @param writer   the writer
+     * @throws AllocatorException the allocator exception
+     */
+    public void getCostsPerRequest(List<AllocationRequest> requests, Writer writer) throws AllocatorException {
+        RegionAllocations[] allocations = allocate(requests);
+        try {
+            ResultWriter resultWriter = new ResultWriter(writer);
+            for (int q = 0; q < allocations.length; q++) {
+                resultWriter.write(allocations[q], requests.get(q).getHours());
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while writing costs", e);
+        }
+    }
+
+    /**
+     * Allocates servers in every region for a batch of requests, visiting each region once for the whole batch.
+     * Greedy regions walk their sorted server types once for all the requests, regions with an optimal table answer
+     * each request from the table. Requests found in the result cache are not allocated again.
+     */
+    private RegionAllocations[] allocate(List<AllocationRequest> requests) throws AllocatorException {
+        if (requests == null) throw new AllocatorException("Requests cannot be null");
+        int size = requests.size();
+        Integer[] cpus = new Integer[size];
+        Double[] targetPricePerHour = new Double[size];
+        for (int q = 0; q < size; q++) {
+            AllocationRequest request = requests.get(q);
+            if (request == null) throw new AllocatorException("Request cannot be null");
+            validateRequest(request.getHours(), request.getCpus(), request.getPrice());
+            cpus[q] = request.getCpus();
+            targetPricePerHour[q] = request.getPrice() == null ? null : request.getPrice() / request.getHours();
+        }
+        logger.info(LOG_ALLOCATE_BATCH, size);
+        AllocationMode[] modes = new AllocationMode[size];
+        for (int q = 0; q < size; q++) modes[q] = AllocationMode.of(cpus[q], targetPricePerHour[q]);
+
+        return this.instrumentation.runBatch(modes, scan -> {
+            Catalog catalog = this.catalog;
+            RegionAllocations[] allocations = new RegionAllocations[size];
+            ResultCache.Key[] keys = new ResultCache.Key[size];
+            boolean[] cacheHits = new boolean[size];
+            int[] misses = new int[size];
+            int missCount = 0;
+            for (int q = 0; q < size; q++) {
+                if (this.resultCache != null) {
+                    keys[q] = ResultCache.key(cpus[q], targetPricePerHour[q]);
+                    allocations[q] = this.resultCache.get(keys[q], catalog);
+                }
+                cacheHits[q] = allocations[q] != null;
+                if (allocations[q] == null) {
+                    allocations[q] = new RegionAllocations(catalog);
+                    misses[missCount++] = q;
+                }
+            }
+            int computedCount = missCount;
+            this.regionExecutor.run(catalog.getRegionCount(), (from, to) -> {
+                Allocation[] batch = new Allocation[computedCount];
+                for (int m = 0; m < computedCount; m++) batch[m] = new Allocation(catalog.getMaxRegionSize());
+                int[] remainingCpus = new int[computedCount];
+                double[] remainingPricePerHour = new double[computedCount];
+                for (int r = from; r < to; r++) { // for each region
+                    RegionCatalog region = catalog.getRegion(r);
+                    for (int m = 0; m < computedCount; m++) batch[m].reset(region.size());
+                    if (region.getOptimalTable() != null) {
+                        for (int m = 0; m < computedCount; m++) { // for each request not in the cache
+                            allocate(region, cpus[misses[m]], targetPricePerHour[misses[m]], batch[m]);
+                        }
+                    } else {
+                        allocateServers(region, cpus, targetPricePerHour, misses, batch, remainingCpus, remainingPricePerHour);
+                    }
+                    for (int m = 0; m < computedCount; m++) allocations[misses[m]].set(r, batch[m]);
+                }
+            });
+            for (int m = 0; m < missCount && this.resultCache != null; m++) {
+                this.resultCache.put(keys[misses[m]], allocations[misses[m]]);
+            }
+            scan.batch(catalog, cacheHits);
+            return allocations;
+        });
+    }
+
+    /**
+     * Asynchronous {@link #getCosts(Integer, Integer, Double)} run on the configured async executor.
+     * The future completes with an {@link com.techguru.allocator.exception.AllocatorRejectedException} when the
+     * maximum # of calls in flight is reached. Cancelling the future before the call starts skips the allocation.
+     *
+     * @param hours the required # of hours of resources
+     * @param cpus  the required # of cpus
+     * @param price the maximum price allowed for the allocation
+     * @return the future costs, cpus if allocated for each region
+     */
+    public CompletableFuture<String> getCostsAsync(Integer hours, Integer cpus, Double price) {
+        return this.asyncExecutor.submit(() -> getCosts(hours, cpus, price));
+    }
+
+    /**
+     * Asynchronous {@link #getCosts(List)} run on the configured async executor. The whole batch counts as one call in flight.
+     *
+     * @param requests the allocation requests
+     * @return the future costs, cpus if allocated for each region of each request
+     */
+    public CompletableFuture<String> getCostsAsync(List<AllocationRequest> requests) {
+        return this.asyncExecutor.submit(() -> getCosts(requests));
+    }
+
+    /**
+     * Asynchronous {@link #getCheapestRegions(Integer, Integer, Double, int)} run on the configured async executor.
+     *
+     * @param hours the required # of hours of resources
+     * @param cpus  the required # of cpus
+     * @param price the maximum price allowed for the allocation
+     * @param k     the # of regions to return
+     * @return the future costs, cpus of the cheapest regions
+     */
+    public CompletableFuture<String> getCheapestRegionsAsync(Integer hours, Integer cpus, Double price, int k) {
+        return this.asyncExecutor.submit(() -> getCheapestRegions(hours, cpus, price, k));
+    }
+
+    /**
+     * Gets the # of asynchronous calls submitted and not completed yet.
+     *
+     * @return the calls in flight
+     */
+    public int getInFlightCount() {
+        return this.asyncExecutor.getInFlight();
+    }
+
+    /**
+     * Gets the hit and miss counters of the result cache.
+     *
+     * @return the cache stats, all zero if the cache is disabled
+     */
+    public CacheStats getCacheStats() {
+        return this.resultCache == null ? CacheStats.builder().build() : this.resultCache.getStats();
+    }
+
+    /**
+     * Validates the parameters of a request, before any allocation
+     *
+     * @param hours the required # of hours of resources
+     * @param cpus  the required # of cpus
+     * @param price the maximum price allowed for the allocation
+     * @throws AllocatorException if the hours, or both the cpus and the price are null
+     */
+    public static void validateRequest(Integer hours, Integer cpus, Double price) throws AllocatorException {
+        if (hours == null) throw new AllocatorException("Hours cannot be null");
+        if (cpus == null && price == null) throw new AllocatorException("Cpus and Price cannot be null");
+    }
+
+    /**
+     * Allocates servers of a region by the mode selected with the non null parameters, using the optimal table of the
+     * region when the catalog has one
      */
-    private AllocatedServers allocateServersByCpus(LinkedHashMap<String, Double> costPerHourMap, Integer hours, Integer targetCpus) {
-        List<Map<String, Integer>> allocatedServersList = new ArrayList<>();
+    private static void allocate(RegionCatalog region, Integer cpus, Double targetPricePerHour, Allocation allocation) {
+        OptimalTable optimalTable = region.getOptimalTable();
+        if (cpus != null && targetPricePerHour == null) {
+            if (optimalTable != null) optimalTable.allocateByCpus(cpus, allocation);
+            else allocateServersByCpus(region, cpus, allocation);
+        } else if (cpus == null) {
+            if (optimalTable != null) optimalTable.allocateByPrice(targetPricePerHour, allocation);
+            else allocatedServersByPrice(region, targetPricePerHour, allocation);
+        } else {
+            if (optimalTable != null) optimalTable.allocateByCpusAndPrice(cpus, targetPricePerHour, allocation);
+            else allocatedServersByCpusAndPrice(region, cpus, targetPricePerHour, allocation);
+        }
+    }
 
-        Double totalCost = 0.0;
-        Integer totalCpus = 0;
+    /**
+     * Allocation - Allocate servers in a region for the requests of a batch, each by the mode selected with its non
+     * null parameters as the greedy kernels do, walking the sorted server types of the region once for the whole batch.
+     * The allocation of each request is filled at its index in the batch, requests[m] being its index in the parameters.
+     */
+    private static void allocateServers(RegionCatalog region, Integer[] cpus, Double[] targetPricePerHour, int[] requests, Allocation[] allocations,
+                                        int[] remainingCpus, double[] remainingPricePerHour) {
+        int count = allocations.length;
+        for (int m = 0; m < count; m++) {
+            int q = requests[m];
+            remainingCpus[m] = cpus[q] == null ? 0 : cpus[q];
+            remainingPricePerHour[m] = targetPricePerHour[q] == null ? 0.0 : targetPricePerHour[q];
+        }
+        for (int i = 0; i < region.size(); i++) { // for each server in region
+            int n = region.getCpus(i);
+            double cost = region.getPrice(i);
+            for (int m = 0; m < count; m++) { // for each request of the batch
+                int q = requests[m];
+                int targetCpus = remainingCpus[m];
+                double target = remainingPricePerHour[m];
+                if (targetPricePerHour[q] == null) {
+                    if (targetCpus > 0 && targetCpus >= n) {
+                        int allocated = targetCpus / n;
+                        allocations[m].add(i, allocated, n, cost);
+                        remainingCpus[m] = targetCpus - (n * allocated);
+                    }
+                } else if (cpus[q] == null) {
+                    if (target > 0 && target >= cost) {
+                        int allocated = (int) (target / cost);
+                        allocations[m].add(i, allocated, n, cost);
+                        remainingPricePerHour[m] = target - (allocated * cost);
+                    }
+                } else if (targetCpus > 0 && targetCpus >= n && target > 0 && target >= cost) {
+                    int allocated = Math.min(targetCpus / n, (int) (target / cost));
+                    allocations[m].add(i, allocated, n, cost);
+                    remainingPricePerHour[m] = target - (allocated * cost);
+                }
+            }
+        }
+    }
 
-        for (Map.Entry<String, Double> e2 : costPerHourMap.entrySet()) { // for each server in region
-            String serverType = e2.getKey();
-            Double cost = e2.getValue();
-            Integer n = this.serverTypes.get(serverType);
+    /**
+     * Allocation - Allocate servers in each region by
+     *      1.  Cpus
+     * The cost per hour of the allocation does not depend on the # of hours.
+     */
+    private static void allocateServersByCpus(RegionCatalog region, int targetCpus, Allocation allocation) {
+        for (int i = 0; i < region.size(); i++) { // for each server in region
+            int n = region.getCpus(i);
             if (targetCpus > 0 && targetCpus >= n) {
-                Integer allocated = targetCpus / n;
-                Map<String, Integer> allocatedServer = new HashMap<>();
-                allocatedServer.put(serverType, allocated);
-                allocatedServersList.add(allocatedServer);
+                int allocated = targetCpus / n;
+                allocation.add(i, allocated, n, region.getPrice(i));
                 targetCpus = targetCpus - (n * allocated);
-                totalCost = totalCost + (allocated * cost * hours);
-                totalCpus = totalCpus + (allocated * n);
             }
         }
-        return AllocatedServers.builder().allocatedServersList(allocatedServersList).totalCpus(totalCpus).totalCost(round(totalCost, 2)).build();
     }
 
     /**
      * Allocation - Allocate servers in each region by
-     *      1.  Hours
-     *      2.  Price
-     */
-    private AllocatedServers allocatedServersByPrice(LinkedHashMap<String, Double> costPerHourMap, Integer hours, Double targetPrice) {
-        List<Map<String, Integer>> allocatedServersList = new ArrayList<>();
-
-        Double targetPricePerHour = targetPrice / hours;
-        Double totalCost = 0.0;
-        Integer totalCpus = 0;
-        for (Map.Entry<String, Double> e2 : costPerHourMap.entrySet()) { // for each server in region
-            String serverType = e2.getKey();
-            Double cost = e2.getValue();
-            Integer n = this.serverTypes.get(serverType);
+     *      1.  Cpus
+     * for consecutive targets from the first one. The first server type takes target / n servers and the others
+     * allocate the remainder, below n, so the greedy allocation of every remainder is computed once. Each point is
+     * priced over the hours one server type after the other, in sorted position order, as getCosts does.
+     */
+    private static void sweepServersByCpus(RegionCatalog region, int fromCpus, int hours, int[] totalCpus, double[] totalCost) {
+        if (region.size() == 0) return;
+        int n = region.getCpus(0);
+        double price = region.getPrice(0);
+        int remainders = (int) Math.min(n, (long) fromCpus + totalCpus.length);
+        //Servers of the other server types allocated for each remainder, flattened with the first one of each remainder
+        int[] firstServer = new int[remainders + 1];
+        int[] remainderCpus = new int[remainders];
+        int[] serverCounts = new int[Math.max(remainders * (region.size() - 1), 0)];
+        double[] serverPrices = new double[serverCounts.length];
+        int servers = 0;
+        for (int remainder = 0; remainder < remainders; remainder++) {
+            firstServer[remainder] = servers;
+            int targetCpus = remainder;
+            for (int i = 1; i < region.size(); i++) { // for each other server in region
+                int m = region.getCpus(i);
+                if (targetCpus > 0 && targetCpus >= m) {
+                    int allocated = targetCpus / m;
+                    remainderCpus[remainder] += allocated * m;
+                    serverCounts[servers] = allocated;
+                    serverPrices[servers++] = region.getPrice(i);
+                    targetCpus = targetCpus - (m * allocated);
+                }
+            }
+        }
+        firstServer[remainders] = servers;
+        for (int p = 0; p < totalCpus.length; p++) {
+            int targetCpus = fromCpus + p;
+            int allocated = targetCpus / n;
+            int remainder = targetCpus - allocated * n;
+            totalCpus[p] = allocated * n + remainderCpus[remainder];
+            double cost = 0.0;
+            if (allocated > 0) cost = cost + (allocated * price * hours);
+            for (int s = firstServer[remainder]; s < firstServer[remainder + 1]; s++) {
+                cost = cost + (serverCounts[s] * serverPrices[s] * hours);
+            }
+            totalCost[p] = cost;
+        }
+    }
+
+    /**
+     * Allocation - Allocate servers in each region by the mode selected with the non null parameters, as the other
+     * greedy kernels do, taking the server types in the ranking of the window at their average cost per hour over it
+     */
+    private static void allocateInWindow(RegionCatalog region, HourlyPrices.Window window, int regionOrdinal, Integer cpus, Double targetPricePerHour, Allocation allocation) {
+        int targetCpus = cpus == null ? Integer.MAX_VALUE : cpus;
+        double target = targetPricePerHour == null ? Double.POSITIVE_INFINITY : targetPricePerHour;
+        for (int rank = 0; rank < region.size(); rank++) { // for each server in region, cheapest over the window first
+            int i = window.getPosition(regionOrdinal, rank);
+            int n = region.getCpus(i);
+            double cost = window.getCostPerHour(regionOrdinal, i);
+            if (targetCpus > 0 && targetCpus >= n && target > 0 && target >= cost) {
+                int allocated = targetPricePerHour == null ? targetCpus / n : (int) Math.min(targetCpus / n, (long) (target / cost));
+                allocation.add(i, allocated, n, cost);
+                if (targetPricePerHour == null) targetCpus = targetCpus - (n * allocated);
+                else target = target - (allocated * cost);
+            }
+        }
+    }
+
+    /**
+     * Allocation - Allocate servers in each region by the mode selected with the non null parameters, as the other
+     * greedy kernels do, skipping the server types whose bit is not set
+     */
+    private static void allocateFiltered(RegionCatalog region, long[] serverTypes, Integer cpus, Double targetPricePerHour, Allocation allocation) {
+        int targetCpus = cpus == null ? Integer.MAX_VALUE : cpus;
+        double target = targetPricePerHour == null ? Double.POSITIVE_INFINITY : targetPricePerHour;
+        for (int i = 0; i < region.size(); i++) { // for each server in region
+            int serverType = region.getServerType(i);
+            if ((serverTypes[serverType >>> 6] & (1L << serverType)) == 0) continue;
+            int n = region.getCpus(i);
+            double cost = region.getPrice(i);
+            if (targetCpus > 0 && targetCpus >= n && target > 0 && target >= cost) {
+                int allocated = targetPricePerHour == null ? targetCpus / n : (int) Math.min(targetCpus / n, (long) (target / cost));
+                allocation.add(i, allocated, n, cost);
+                if (targetPricePerHour == null) targetCpus = targetCpus - (n * allocated);
+                else target = target - (allocated * cost);
+            }
+        }
+    }
+
+    /**
+     * Allocation - Allocate servers in each region by
+     *      1.  Price per hour
+     */
+    private static void allocatedServersByPrice(RegionCatalog region, double targetPricePerHour, Allocation allocation) {
+        for (int i = 0; i < region.size(); i++) { // for each server in region
+            double cost = region.getPrice(i);
             if (targetPricePerHour > 0 && targetPricePerHour >= cost) {
-                Double quotient = targetPricePerHour / cost;
-                Integer allocated = quotient.intValue();
-                Map<String, Integer> allocatedServer = new HashMap<>();
-                allocatedServer.put(serverType, allocated);
-                allocatedServersList.add(allocatedServer);
+                int allocated = (int) (targetPricePerHour / cost);
+                allocation.add(i, allocated, region.getCpus(i), cost);
                 targetPricePerHour = targetPricePerHour - (allocated * cost);
-                totalCost = totalCost + (allocated * cost * hours);
-                totalCpus = totalCpus + (allocated * n);
             }
         }
-        return AllocatedServers.builder().allocatedServersList(allocatedServersList).totalCpus(totalCpus).totalCost(round(totalCost, 2)).build();
     }
 
     /**
      * Allocation - Allocate servers in each region by
-     *      1.  Hours
-     *      2.  Cpus
-     *      3.  Price
-     */
-    private AllocatedServers allocatedServersByCpusAndPrice(LinkedHashMap<String, Double> costPerHourMap, Integer hours, Integer targetCpus, Double targetPrice) {
-        List<Map<String, Integer>> allocatedServersList = new ArrayList<>();
-
-        Double targetPricePerHour = targetPrice / hours;
-        Double totalCost = 0.0;
-        Integer totalCpus = 0;
-        for (Map.Entry<String, Double> e2 : costPerHourMap.entrySet()) { // for each server in region
-            String serverType = e2.getKey();
-            Double cost = e2.getValue();
-            Integer n = this.serverTypes.get(serverType);
+     *      1.  Cpus
+     *      2.  Price per hour
+     */
+    private static void allocatedServersByCpusAndPrice(RegionCatalog region, int targetCpus, double targetPricePerHour, Allocation allocation) {
+        for (int i = 0; i < region.size(); i++) { // for each server in region
+            int n = region.getCpus(i);
+            double cost = region.getPrice(i);
             if (targetCpus > 0 && targetCpus >= n && targetPricePerHour > 0 && targetPricePerHour >= cost) {
-                Double quotient = targetPricePerHour / cost;
-                Integer allocated = Math.min(targetCpus / n, quotient.intValue());
-                Map<String, Integer> allocatedServer = new HashMap<>();
-                allocatedServer.put(serverType, allocated);
-                allocatedServersList.add(allocatedServer);
+                int allocated = Math.min(targetCpus / n, (int) (targetPricePerHour / cost));
+                allocation.add(i, allocated, n, cost);
                 targetPricePerHour = targetPricePerHour - (allocated * cost);
-                totalCost = totalCost + (allocated * cost * hours);
-                totalCpus = totalCpus + (allocated * n);
             }
         }
-        return AllocatedServers.builder().allocatedServersList(allocatedServersList).totalCpus(totalCpus).totalCost(round(totalCost, 2)).build();
     }
 
 }
@@ -0,0 +1,79 @@
+package com.techguru.allocator;
+
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.exception.AllocatorRejectedException;
+import com.techguru.allocator.pojo.AllocatorConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AsyncExecutor - Runs allocator calls on the configured executor with a bounded # of calls in flight.
+ * A call holds a permit from submission until it completes, so queued calls count against the bound and the queue of
+ * the executor cannot grow past it. Calls submitted while all permits are held complete right away with an
+ * {@link AllocatorRejectedException}. Calls whose future is cancelled or completed before they start give their permit
+ * back at once and are skipped when dequeued.
+ */
+class AsyncExecutor {
+
+    /**
+     * Allocator call run asynchronously
+     */
+    interface Call<T> {
+        T call() throws AllocatorException;
+    }
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    AsyncExecutor(AllocatorConfig config) {
+        this.executor = config.getAsyncExecutor() == null ? ForkJoinPool.commonPool() : config.getAsyncExecutor();
+        this.maxInFlight = Math.max(config.getMaxInFlight(), 1);
+        this.permits = new Semaphore(this.maxInFlight);
+    }
+
+    <T> CompletableFuture<T> submit(Call<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!this.permits.tryAcquire()) {
+            future.completeExceptionally(new AllocatorRejectedException("Too many requests in flight, limit " + this.maxInFlight));
+            return future;
+        }
+        //Claimed once, by the call when it starts or by the completion of its future while it is queued
+        AtomicBoolean claimed = new AtomicBoolean();
+        future.whenComplete((result, failure) -> {
+            if (claimed.compareAndSet(false, true)) this.permits.release();
+        });
+        try {
+            this.executor.execute(() -> {
+                if (!claimed.compareAndSet(false, true)) return;
+                //The permit is released before completion, so callers reacting to the completion can submit again
+                T result = null;
+                Throwable failure = null;
+                try {
+                    result = call.call();
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    this.permits.release();
+                }
+                if (failure != null) future.completeExceptionally(failure);
+                else future.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new AllocatorRejectedException("Request rejected by the executor", e));
+        }
+        return future;
+    }
+
+    /**
+     * # of calls submitted and not completed yet
+     */
+    int getInFlight() {
+        return this.maxInFlight - this.permits.availablePermits();
+    }
+}
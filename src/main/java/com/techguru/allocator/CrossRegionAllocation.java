@@ -0,0 +1,141 @@
+package com.techguru.allocator;
+
+import com.techguru.allocator.catalog.Allocation;
+import com.techguru.allocator.catalog.Catalog;
+import com.techguru.allocator.catalog.RegionCatalog;
+import com.techguru.allocator.pojo.GlobalResult;
+import com.techguru.allocator.pojo.Result;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.techguru.allocator.util.AllocatorUtils.dollarValue;
+import static com.techguru.allocator.util.AllocatorUtils.round;
+
+/**
+ * CrossRegionAllocation - Greedy allocation over every (region, server type) pair of a catalog, taking the pairs in
+ * ascending 'cost per hour per CPU' across all regions.
+ * The server types of each region are already sorted, so the pairs are a k-way merge of the regions: a heap holds
+ * the next server type of each region in play. Regions enter the heap in the order of the catalog index of their
+ * best 'cost per hour per CPU', only once their first server type may be the next pair, so the heap stays as small
+ * as the # of regions actually used and nothing is sorted per request.
+ */
+class CrossRegionAllocation {
+
+    static final int UNCAPPED = Integer.MAX_VALUE;
+
+    private static final Comparator<Head> CHEAPEST_FIRST = Comparator.<Head>comparingDouble(h -> h.costPerCpu).thenComparingInt(h -> h.regionOrdinal);
+
+    private final Catalog catalog;
+    private final Allocation[] allocations;
+    private int regionsAllocated;
+    private long serverTypesScanned;
+
+    CrossRegionAllocation(Catalog catalog) {
+        this.catalog = catalog;
+        this.allocations = new Allocation[catalog.getRegionCount()];
+    }
+
+    /**
+     * Allocates servers by the mode selected with the non null parameters, as the greedy allocation of a single region
+     * does, with at most the cap of cpus in each region
+     *
+     * @param cpus               the required # of cpus, null for price only
+     * @param targetPricePerHour the maximum cost per hour, null for cpus only
+     * @param caps               the maximum # of cpus of each region by ordinal, {@link #UNCAPPED} if unbounded
+     */
+    void allocate(Integer cpus, Double targetPricePerHour, int[] caps) {
+        int minCpus = Integer.MAX_VALUE;
+        for (int t = 0; t < this.catalog.getServerTypeCount(); t++) {
+            minCpus = Math.min(minCpus, this.catalog.getServerTypeCpus(t));
+        }
+        int targetCpus = cpus == null ? Integer.MAX_VALUE : cpus;
+        double target = targetPricePerHour == null ? Double.POSITIVE_INFINITY : targetPricePerHour;
+        PriorityQueue<Head> heap = new PriorityQueue<>(CHEAPEST_FIRST);
+        int rank = 0;
+        while (targetCpus >= minCpus && target > 0) {
+            //Lazy merge - Add the regions whose best server type is not more expensive than the cheapest head
+            while (rank < this.catalog.getRegionCount()) {
+                int r = this.catalog.getRegionByCostPerCpu(rank);
+                RegionCatalog region = this.catalog.getRegion(r);
+                if (!heap.isEmpty() && region.getBestCostPerCpu() > heap.peek().costPerCpu) break;
+                if (region.size() > 0 && caps[r] >= region.getMinCpus()) heap.add(new Head(r, region.getBestCostPerCpu()));
+                rank++;
+            }
+            Head head = heap.poll();
+            if (head == null) break;
+
+            int r = head.regionOrdinal;
+            RegionCatalog region = this.catalog.getRegion(r);
+            int n = region.getCpus(head.position);
+            double price = region.getPrice(head.position);
+            long allocated = Math.min(targetCpus, caps[r]) / n;
+            if (targetPricePerHour != null) allocated = Math.min(allocated, (long) (target / price));
+            if (allocated > 0) {
+                allocation(r).add(head.position, (int) allocated, n, price);
+                targetCpus -= (int) allocated * n;
+                if (caps[r] != UNCAPPED) caps[r] -= (int) allocated * n;
+                target -= allocated * price;
+            }
+            this.serverTypesScanned++;
+            if (++head.position < region.size() && caps[r] >= region.getMinCpus()) {
+                head.costPerCpu = region.getPrice(head.position) / region.getCpus(head.position);
+                heap.add(head);
+            }
+        }
+    }
+
+    private Allocation allocation(int regionOrdinal) {
+        Allocation allocation = this.allocations[regionOrdinal];
+        if (allocation == null) {
+            allocation = new Allocation(this.catalog.getRegion(regionOrdinal).size());
+            allocation.reset(this.catalog.getRegion(regionOrdinal).size());
+            this.allocations[regionOrdinal] = allocation;
+            this.regionsAllocated++;
+        }
+        return allocation;
+    }
+
+    int getRegionsAllocated() {
+        return this.regionsAllocated;
+    }
+
+    long getServerTypesScanned() {
+        return this.serverTypesScanned;
+    }
+
+    /**
+     * Prices the allocation for the # of hours, with the regions used in catalog order
+     */
+    GlobalResult toResult(int hours) {
+        List<Result> regions = new ArrayList<>(this.regionsAllocated);
+        int totalCpus = 0;
+        double totalCost = 0.0;
+        for (int r = 0; r < this.allocations.length; r++) {
+            Allocation allocation = this.allocations[r];
+            if (allocation == null) continue;
+            totalCpus += allocation.getTotalCpus();
+            double cost = allocation.getCost(hours);
+            totalCost += cost;
+            regions.add(Result.builder().region(this.catalog.getRegionName(r)).totalCpus(allocation.getTotalCpus())
+                    .totalCost(dollarValue(round(cost, 2))).servers(RegionAllocations.servers(this.catalog, r, allocation)).build());
+        }
+        return GlobalResult.builder().totalCpus(totalCpus).totalCost(dollarValue(round(totalCost, 2))).regions(regions).build();
+    }
+
+    /**
+     * Next server type of a region in the merge
+     */
+    private static final class Head {
+        private final int regionOrdinal;
+        private int position;
+        private double costPerCpu;
+
+        private Head(int regionOrdinal, double costPerCpu) {
+            this.regionOrdinal = regionOrdinal;
+            this.costPerCpu = costPerCpu;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.techguru.allocator;
+
+import com.techguru.allocator.catalog.Catalog;
+import com.techguru.allocator.constants.AllocationMode;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.metrics.AllocateEvent;
+import com.techguru.allocator.metrics.AllocatorMetrics;
+
+/**
+ * Instrumentation - Times the allocations of an allocator for its {@link AllocatorMetrics} and reports them to the
+ * flight recorder as {@link AllocateEvent}s, the same way for every entry point. Timing is skipped when the metrics are
+ * {@link AllocatorMetrics#NOOP} and events are only filled when a recording enables them. An allocation which throws
+ * is not reported.
+ */
+final class Instrumentation {
+
+    /**
+     * Allocation run by the instrumentation, which reports what it scanned before returning
+     */
+    interface Call<T> {
+        T call(Scan scan) throws AllocatorException;
+    }
+
+    /**
+     * What an allocation scanned: the catalog allocated, the regions and (region, server type) entries evaluated,
+     * and whether the allocations came from the result cache, for each request of a batch
+     */
+    static final class Scan {
+        private Catalog catalog;
+        private int regionsEvaluated;
+        private long serverTypesScanned;
+        private boolean cacheHit;
+        private boolean[] cacheHits;
+
+        /**
+         * Reports an allocation of every region of the catalog
+         */
+        void all(Catalog catalog) {
+            scanned(catalog, catalog.getRegionCount(), catalog.getEntryCount());
+        }
+
+        /**
+         * Reports an allocation of some of the regions of the catalog
+         */
+        void scanned(Catalog catalog, int regionsEvaluated, long serverTypesScanned) {
+            this.catalog = catalog;
+            this.regionsEvaluated = regionsEvaluated;
+            this.serverTypesScanned = serverTypesScanned;
+        }
+
+        /**
+         * Reports allocations taken from the result cache
+         */
+        void cacheHit(Catalog catalog) {
+            this.catalog = catalog;
+            this.cacheHit = true;
+        }
+
+        /**
+         * Reports a batch, each request either taken from the result cache or allocated in every region
+         */
+        void batch(Catalog catalog, boolean[] cacheHits) {
+            this.catalog = catalog;
+            this.cacheHits = cacheHits;
+        }
+    }
+
+    private final AllocatorMetrics metrics;
+
+    Instrumentation(AllocatorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs an allocation of one request and reports it
+     */
+    <T> T run(AllocationMode mode, Call<T> call) throws AllocatorException {
+        long start = this.metrics != AllocatorMetrics.NOOP ? System.nanoTime() : 0L;
+        AllocateEvent event = new AllocateEvent();
+        event.begin();
+        Scan scan = new Scan();
+        T result = call.call(scan);
+        event.end();
+        if (this.metrics != AllocatorMetrics.NOOP) this.metrics.onAllocate(mode, System.nanoTime() - start, scan.regionsEvaluated, scan.serverTypesScanned, scan.cacheHit);
+        commit(mode, event, scan.catalog, scan.regionsEvaluated, scan.serverTypesScanned, scan.cacheHit);
+        return result;
+    }
+
+    /**
+     * Runs the allocation of a batch and reports each of its requests, in the modes given in request order
+     */
+    <T> T runBatch(AllocationMode[] modes, Call<T> call) throws AllocatorException {
+        boolean timed = this.metrics != AllocatorMetrics.NOOP;
+        long start = timed ? System.nanoTime() : 0L;
+        //Every request of the batch waits for the whole pass, so each one gets an event spanning it
+        AllocateEvent[] events = null;
+        if (new AllocateEvent().isEnabled()) {
+            events = new AllocateEvent[modes.length];
+            for (int q = 0; q < modes.length; q++) {
+                events[q] = new AllocateEvent();
+                events[q].begin();
+            }
+        }
+        Scan scan = new Scan();
+        T result = call.call(scan);
+        if (timed || events != null) {
+            //The regions are visited once for the whole batch, so each request is charged an even share of the duration
+            long share = timed ? (System.nanoTime() - start) / Math.max(modes.length, 1) : 0L;
+            for (int q = 0; q < modes.length; q++) {
+                boolean cacheHit = scan.cacheHits[q];
+                int regionsEvaluated = cacheHit ? 0 : scan.catalog.getRegionCount();
+                long serverTypesScanned = cacheHit ? 0L : scan.catalog.getEntryCount();
+                if (timed) this.metrics.onAllocate(modes[q], share, regionsEvaluated, serverTypesScanned, cacheHit);
+                if (events != null) {
+                    events[q].end();
+                    commit(modes[q], events[q], scan.catalog, regionsEvaluated, serverTypesScanned, cacheHit);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reports an ended allocation to the flight recorder, if a recording enables the event
+     */
+    private static void commit(AllocationMode mode, AllocateEvent event, Catalog catalog, int regionsEvaluated, long serverTypesScanned, boolean cacheHit) {
+        if (event.shouldCommit()) {
+            event.mode = mode.name();
+            event.regionsEvaluated = regionsEvaluated;
+            event.serverTypesScanned = serverTypesScanned;
+            event.cacheHit = cacheHit;
+            event.catalogVersion = catalog.getVersion();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.techguru.allocator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Inventory - Remaining # of servers of every server type in every region.
+ * Each region has its own array of counters indexed by server type ordinal, which stays valid across price updates
+ * since server type and region ordinals never change. Counters are taken and given back with compare-and-set, so
+ * reservations in different regions, or of different server types, never contend. Regions and server types without
+ * a capacity are unlimited.
+ */
+class Inventory {
+
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int serverTypeCount;
+    private volatile AtomicIntegerArray[] regions = new AtomicIntegerArray[0];
+
+    Inventory(int serverTypeCount) {
+        this.serverTypeCount = serverTypeCount;
+    }
+
+    /**
+     * Sets the remaining # of servers of a server type in a region. Only the outer array is copied when a region gets
+     * its first capacity, the counters of the other regions are shared.
+     */
+    synchronized void setCapacity(int region, int serverType, int capacity) {
+        AtomicIntegerArray[] current = this.regions;
+        if (region >= current.length || current[region] == null) {
+            AtomicIntegerArray counters = new AtomicIntegerArray(this.serverTypeCount);
+            for (int t = 0; t < this.serverTypeCount; t++) {
+                counters.set(t, UNLIMITED);
+            }
+            current = Arrays.copyOf(current, Math.max(current.length, region + 1));
+            current[region] = counters;
+            counters.set(serverType, capacity);
+            this.regions = current;
+        } else {
+            current[region].set(serverType, capacity);
+        }
+    }
+
+    /**
+     * Remaining # of servers of a server type in a region, {@link #UNLIMITED} if it has no capacity
+     */
+    int getRemaining(int region, int serverType) {
+        AtomicIntegerArray[] current = this.regions;
+        return region >= current.length || current[region] == null ? UNLIMITED : current[region].get(serverType);
+    }
+
+    /**
+     * Takes servers of a server type in a region if enough are left
+     *
+     * @return false if fewer servers are left, in which case nothing is taken
+     */
+    boolean take(int region, int serverType, int count) {
+        AtomicIntegerArray[] current = this.regions;
+        if (region >= current.length || current[region] == null) return true;
+        AtomicIntegerArray counters = current[region];
+        while (true) {
+            int remaining = counters.get(serverType);
+            if (remaining == UNLIMITED) return true;
+            if (remaining < count) return false;
+            if (counters.compareAndSet(serverType, remaining, remaining - count)) return true;
+        }
+    }
+
+    /**
+     * Takes the servers of every server type of a hold, all or nothing. When a server type has fewer servers left
+     * the server types already taken are given back.
+     *
+     * @return false if a server type has fewer servers left, in which case nothing is taken
+     */
+    boolean take(Hold hold) {
+        for (int i = 0; i < hold.serverTypes.length; i++) {
+            if (!take(hold.region, hold.serverTypes[i], hold.counts[i])) {
+                while (--i >= 0) giveBack(hold.region, hold.serverTypes[i], hold.counts[i]);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives back the servers of every server type of a hold
+     */
+    void giveBack(Hold hold) {
+        for (int i = 0; i < hold.serverTypes.length; i++) {
+            giveBack(hold.region, hold.serverTypes[i], hold.counts[i]);
+        }
+    }
+
+    /**
+     * Gives back servers taken from a server type in a region
+     */
+    void giveBack(int region, int serverType, int count) {
+        AtomicIntegerArray[] current = this.regions;
+        if (region >= current.length || current[region] == null) return;
+        AtomicIntegerArray counters = current[region];
+        while (true) {
+            int remaining = counters.get(serverType);
+            if (remaining == UNLIMITED) return;
+            int updated = (int) Math.min((long) remaining + count, UNLIMITED - 1);
+            if (counters.compareAndSet(serverType, remaining, updated)) return;
+        }
+    }
+
+    /**
+     * Servers of a region taken together, as server type ordinals and counts
+     */
+    static final class Hold {
+        private final int region;
+        private final int[] serverTypes;
+        private final int[] counts;
+
+        Hold(int region, int[] serverTypes, int[] counts) {
+            this.region = region;
+            this.serverTypes = serverTypes;
+            this.counts = counts;
+        }
+    }
+}
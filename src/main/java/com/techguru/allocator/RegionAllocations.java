@@ -0,0 +1,111 @@
+package com.techguru.allocator;
+
+import com.techguru.allocator.catalog.Allocation;
+import com.techguru.allocator.catalog.Catalog;
+import com.techguru.allocator.catalog.RegionCatalog;
+import com.techguru.allocator.catalog.ServerTypeIndex;
+import com.techguru.allocator.pojo.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.techguru.allocator.util.AllocatorUtils.dollarValue;
+import static com.techguru.allocator.util.AllocatorUtils.round;
+
+/**
+ * RegionAllocations - Servers, cpus and cost per hour allocated in every region of a catalog for one request.
+ * The cost per hour of each server type allocated is kept so the same allocations can be priced for any # of hours,
+ * summed the same way as {@link Allocation#getCost(int)}.
+ */
+class RegionAllocations {
+
+    private final Catalog catalog;
+    private final List<List<Map<String, Integer>>> servers;
+    private final int[] totalCpus;
+    private final double[][] serverCostsPerHour;
+
+    RegionAllocations(Catalog catalog) {
+        this.catalog = catalog;
+        this.servers = new ArrayList<>(Collections.nCopies(catalog.getRegionCount(), null));
+        this.totalCpus = new int[catalog.getRegionCount()];
+        this.serverCostsPerHour = new double[catalog.getRegionCount()][];
+    }
+
+    /**
+     * Output boundary - Stores the primitive allocation of a region with the server type names resolved
+     */
+    void set(int regionOrdinal, Allocation allocation) {
+        this.servers.set(regionOrdinal, servers(this.catalog, regionOrdinal, allocation));
+        this.totalCpus[regionOrdinal] = allocation.getTotalCpus();
+        this.serverCostsPerHour[regionOrdinal] = serverCostsPerHour(allocation);
+    }
+
+    /**
+     * Cost per hour of the servers of each server type allocated, in sorted position order
+     */
+    private static double[] serverCostsPerHour(Allocation allocation) {
+        int servers = 0;
+        for (int i = 0; i < allocation.size(); i++) {
+            if (allocation.getCount(i) > 0) servers++;
+        }
+        double[] costs = new double[servers];
+        for (int i = 0, s = 0; i < allocation.size(); i++) {
+            if (allocation.getCount(i) > 0) costs[s++] = allocation.getCount(i) * allocation.getPrice(i);
+        }
+        return costs;
+    }
+
+    /**
+     * Resolves the server type names of the primitive allocation of a region
+     */
+    static List<Map<String, Integer>> servers(Catalog catalog, int regionOrdinal, Allocation allocation) {
+        RegionCatalog region = catalog.getRegion(regionOrdinal);
+        List<Map<String, Integer>> allocatedServersList = new ArrayList<>();
+        for (int i = 0; i < allocation.size(); i++) {
+            int allocated = allocation.getCount(i);
+            if (allocated > 0) {
+                allocatedServersList.add(Collections.singletonMap(catalog.getServerTypeName(region.getServerType(i)), allocated));
+            }
+        }
+        return Collections.unmodifiableList(allocatedServersList);
+    }
+
+    Catalog getCatalog() {
+        return this.catalog;
+    }
+
+    List<Map<String, Integer>> getServers(int regionOrdinal) {
+        return this.servers.get(regionOrdinal);
+    }
+
+    int getTotalCpus(int regionOrdinal) {
+        return this.totalCpus[regionOrdinal];
+    }
+
+    double getCost(int regionOrdinal, int hours) {
+        double cost = 0.0;
+        for (double serverCostPerHour : this.serverCostsPerHour[regionOrdinal]) cost = cost + (serverCostPerHour * hours);
+        return cost;
+    }
+
+    /**
+     * Prices the allocations of every region for the # of hours, in catalog order
+     */
+    List<Result> toResults(int hours) {
+        return toResults(hours, null);
+    }
+
+    /**
+     * Prices the allocations of the regions of a bitset for the # of hours, in catalog order, every region if null
+     */
+    List<Result> toResults(int hours, long[] regions) {
+        List<Result> resultList = new ArrayList<>(this.totalCpus.length);
+        for (int r = 0; r < this.totalCpus.length; r++) {
+            if (regions != null && !ServerTypeIndex.contains(regions, r)) continue;
+            resultList.add(Result.builder().region(this.catalog.getRegionName(r)).totalCpus(this.totalCpus[r]).totalCost(dollarValue(round(getCost(r, hours), 2))).servers(this.servers.get(r)).build());
+        }
+        return resultList;
+    }
+}
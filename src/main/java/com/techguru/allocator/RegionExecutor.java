@@ -0,0 +1,95 @@
+package com.techguru.allocator;
+
+import com.techguru.allocator.constants.ExecutionStrategy;
+import com.techguru.allocator.pojo.AllocatorConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * RegionExecutor - Runs a task over ranges of region ordinals with the configured execution strategy.
+ * Tasks write their output by region ordinal, so the catalog order is kept whatever the strategy.
+ */
+class RegionExecutor {
+
+    /**
+     * Task evaluating the regions with ordinals from (inclusive) to (exclusive)
+     */
+    interface RangeTask {
+        void run(int from, int to);
+    }
+
+    private final ExecutionStrategy strategy;
+    private final Executor executor;
+    private final int parallelThreshold;
+    private final int parallelism;
+
+    RegionExecutor(AllocatorConfig config) {
+        this.strategy = config.getExecutor() == null && config.getExecutionStrategy() == ExecutionStrategy.EXECUTOR ? ExecutionStrategy.FORK_JOIN : config.getExecutionStrategy();
+        this.executor = config.getExecutor();
+        this.parallelThreshold = Math.max(config.getParallelThreshold(), 1);
+        this.parallelism = this.strategy == ExecutionStrategy.FORK_JOIN ? ForkJoinPool.getCommonPoolParallelism() : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Runs the task over all regions. Small catalogs are always evaluated sequentially on the calling thread.
+     *
+     * @param regionCount the # of regions
+     * @param task        the task
+     */
+    void run(int regionCount, RangeTask task) {
+        if (this.strategy == ExecutionStrategy.SEQUENTIAL || regionCount < this.parallelThreshold || this.parallelism < 2) {
+            task.run(0, regionCount);
+            return;
+        }
+        int grain = Math.max(regionCount / (this.parallelism * 4), 1);
+        if (this.strategy == ExecutionStrategy.FORK_JOIN) {
+            ForkJoinPool.commonPool().invoke(new RangeAction(task, 0, regionCount, grain));
+            return;
+        }
+        int chunks = (regionCount + grain - 1) / grain;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks - 1];
+        for (int i = 1; i < chunks; i++) {
+            int from = i * grain;
+            int to = Math.min(from + grain, regionCount);
+            futures[i - 1] = CompletableFuture.runAsync(() -> task.run(from, to), this.executor);
+        }
+        task.run(0, Math.min(grain, regionCount));
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Splits a range of regions in halves until it is below the grain size
+     */
+    private static class RangeAction extends RecursiveAction {
+        private final RangeTask task;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeAction(RangeTask task, int from, int to, int grain) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.grain) {
+                this.task.run(this.from, this.to);
+                return;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new RangeAction(this.task, this.from, mid, this.grain), new RangeAction(this.task, mid, this.to, this.grain));
+        }
+    }
+}
@@ -1,12 +1,38 @@
 package com.techguru.allocator;
 
+import com.techguru.allocator.bulk.BulkAllocator;
+import com.techguru.allocator.catalog.CatalogFile;
 import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.BulkConfig;
+import com.techguru.allocator.pojo.BulkReport;
+import com.techguru.allocator.pojo.LoadTestReport;
+import com.techguru.allocator.pojo.ServerConfig;
+import com.techguru.allocator.server.AllocatorServer;
+import com.techguru.allocator.server.LoadTestClient;
+import com.techguru.allocator.shard.ShardServer;
+import com.techguru.allocator.shard.ShardedAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+
+import static com.techguru.allocator.constants.AllocatorConstants.LOG_BULK;
+import static com.techguru.allocator.constants.AllocatorConstants.LOG_COMPILE_CATALOG;
+import static com.techguru.allocator.constants.AllocatorConstants.LOG_LOAD_TEST;
 
 /**
  * Main class of resource allocator
@@ -17,18 +43,161 @@ public class ResourceAllocatorMain {
 
     /**
      * The main method. Entry point of application.
+     * <pre>
+     * (no arguments)                                    logs the costs of three sample requests
+     * compile &lt;catalog file&gt;                            compiles the bundled inputs to a catalog file
+     * serve [port] [workers] [batch window micros]      serves the bundled inputs over http
+     * loadtest [base url] [clients] [requests/client]   measures the throughput and latency of a server
+     * shard &lt;port&gt; &lt;shard index&gt; &lt;shard count&gt;          serves one shard of the bundled inputs to a sharded allocator
+     * bulk [requests file] [workers]                    allocates json requests, one per line, from the file or stdin
+     *                                                   and writes the results to stdout, one per line
+     * </pre>
      *
      * @param args the input arguments
      * @throws AllocatorException the allocator exception
      */
     public static void main(String[] args) throws AllocatorException {
+        String mode = args.length == 0 ? "" : args[0];
+        switch (mode) {
+            case "compile":
+                if (args.length != 2) throw new AllocatorException("Usage: compile <catalog file>");
+                compile(Paths.get(args[1]));
+                break;
+            case "serve":
+                serve(args);
+                break;
+            case "loadtest":
+                loadTest(args);
+                break;
+            case "shard":
+                if (args.length != 4) throw new AllocatorException("Usage: shard <port> <shard index> <shard count>");
+                shard(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+                break;
+            case "bulk":
+                bulk(args);
+                break;
+            default:
+                Allocator allocator = load();
+                logger.info(allocator.getCosts(24, 115, null));
+                logger.info(allocator.getCosts(8, null, 29.0));
+                logger.info(allocator.getCosts(7, 214, 95.0));
+        }
+    }
+
+    /**
+     * Loads the bundled inputs
+     */
+    private static Allocator load() throws AllocatorException {
+        try (InputStream serverTypesInputStream = Objects.requireNonNull(Allocator.class.getClassLoader().getResource("server.types.json")).openStream();
+             InputStream regionCostPerHourInputStream = Objects.requireNonNull(Allocator.class.getClassLoader().getResource("region.cost.per.hour.json")).openStream()
+        ) {
+            return new Allocator(serverTypesInputStream, regionCostPerHourInputStream);
+        } catch (IOException e) {
+            String message = "Exception in processing one of the inputs";
+            throw new AllocatorException(message, e);
+        }
+    }
+
+    /**
+     * Serves the bundled inputs until the process is stopped
+     */
+    private static void serve(String[] args) throws AllocatorException {
+        ServerConfig.ServerConfigBuilder config = ServerConfig.builder();
+        if (args.length > 1) config.port(Integer.parseInt(args[1]));
+        if (args.length > 2) config.workers(Integer.parseInt(args[2]));
+        if (args.length > 3) config.batchWindowMicros(Long.parseLong(args[3]));
+        //Read once by the JDK http server, before it creates its first server
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        AllocatorServer server = new AllocatorServer(load(), config.build());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        server.start();
+    }
+
+    /**
+     * Sends the sample requests to a running server and logs the throughput and latency percentiles
+     */
+    private static void loadTest(String[] args) throws AllocatorException {
+        URI baseUri = URI.create(args.length > 1 ? args[1] : "http://localhost:8080");
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int requestsPerClient = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        LoadTestReport report = new LoadTestClient(baseUri).run(Arrays.asList("hours=24&cpus=115", "hours=8&price=29.0", "hours=7&cpus=214&price=95.0"), clients, requestsPerClient);
+        logger.info(LOG_LOAD_TEST, report.getRequests(), report.getErrors(), String.format("%.2f", report.getSeconds()),
+                String.format("%.0f", report.getThroughput()), report.getP50Micros(), report.getP99Micros());
+    }
+
+    /**
+     * Serves a range of the regions of the bundled inputs until the process is stopped. The region costs are streamed
+     * twice, to count the regions then to copy the range of the shard, so the other regions are never loaded.
+     */
+    private static void shard(int port, int shardIndex, int shardCount) throws AllocatorException {
+        String serverTypesJson = resource("server.types.json");
+        int regionCount;
+        String shardJson;
+        try (Reader regionCostPerHour = resourceReader("region.cost.per.hour.json")) {
+            regionCount = ShardedAllocator.countRegions(regionCostPerHour);
+        } catch (IOException e) {
+            throw new AllocatorException("Exception in processing one of the inputs", e);
+        }
+        try (Reader regionCostPerHour = resourceReader("region.cost.per.hour.json")) {
+            shardJson = ShardedAllocator.shard(regionCostPerHour, regionCount, shardIndex, shardCount);
+        } catch (IOException e) {
+            throw new AllocatorException("Exception in processing one of the inputs", e);
+        }
+        ShardServer server = new ShardServer(new Allocator(serverTypesJson, shardJson), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        //The connection threads are daemons, wait here until the process is stopped
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Reader resourceReader(String name) throws IOException {
+        return new InputStreamReader(Objects.requireNonNull(Allocator.class.getClassLoader().getResource(name)).openStream(), StandardCharsets.UTF_8);
+    }
+
+    private static String resource(String name) throws AllocatorException {
+        try (InputStream inputStream = Objects.requireNonNull(Allocator.class.getClassLoader().getResource(name)).openStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            String message = "Exception in processing one of the inputs";
+            throw new AllocatorException(message, e);
+        }
+    }
+
+    /**
+     * Allocates the request lines of a file, or of stdin if none is given or it is "-", and writes the result lines
+     * to stdout
+     */
+    private static void bulk(String[] args) throws AllocatorException {
+        BulkConfig.BulkConfigBuilder config = BulkConfig.builder();
+        if (args.length > 2) config.workers(Integer.parseInt(args[2]));
+        BulkAllocator bulkAllocator = new BulkAllocator(load(), config.build());
+        Writer results = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        BulkReport report;
+        if (args.length > 1 && !"-".equals(args[1])) {
+            try (Reader requests = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                report = bulkAllocator.run(requests, results);
+            } catch (IOException e) {
+                throw new AllocatorException("Exception while reading requests", e);
+            }
+        } else {
+            report = bulkAllocator.run(new InputStreamReader(System.in, StandardCharsets.UTF_8), results);
+        }
+        logger.info(LOG_BULK, report.getRequests(), report.getErrors(), String.format("%.2f", report.getSeconds()), String.format("%.0f", report.getThroughput()));
+    }
+
+    /**
+     * Compiles the bundled inputs to a catalog file, to be loaded with {@link Allocator#fromCatalogFile(Path)}
+     */
+    private static void compile(Path catalogFile) throws AllocatorException {
         try (InputStream serverTypesInputStream = Objects.requireNonNull(Allocator.class.getClassLoader().getResource("server.types.json")).openStream();
              InputStream regionCostPerHourInputStream = Objects.requireNonNull(Allocator.class.getClassLoader().getResource("region.cost.per.hour.json")).openStream()
         ) {
-            Allocator allocator = new Allocator(serverTypesInputStream, regionCostPerHourInputStream);
-            logger.info(allocator.getCosts(24, 115, null));
-            logger.info(allocator.getCosts(8, null, 29.0));
-            logger.info(allocator.getCosts(7, 214, 95.0));
+            CatalogFile.compile(new InputStreamReader(serverTypesInputStream, StandardCharsets.UTF_8), new InputStreamReader(regionCostPerHourInputStream, StandardCharsets.UTF_8), catalogFile);
+            logger.info(LOG_COMPILE_CATALOG, catalogFile);
         } catch (IOException e) {
             String message = "Exception in processing one of the inputs";
             throw new AllocatorException(message, e);
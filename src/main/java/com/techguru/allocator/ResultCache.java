@@ -0,0 +1,94 @@
+package com.techguru.allocator;
+
+import com.techguru.allocator.catalog.Catalog;
+import com.techguru.allocator.pojo.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ResultCache - Bounded LRU cache of the allocations of every region, keyed on the hour independent part of a request.
+ * For the cpus only mode the key is the # of cpus alone, the other modes are keyed on (cpus, price per hour).
+ * Entries computed on another catalog than the current one are treated as misses.
+ */
+class ResultCache {
+
+    private final Map<Key, RegionAllocations> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ResultCache(int maxSize) {
+        this.entries = new LinkedHashMap<Key, RegionAllocations>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, RegionAllocations> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    static Key key(Integer cpus, Double targetPricePerHour) {
+        return new Key(cpus == null ? -1 : cpus, targetPricePerHour == null ? 0L : Double.doubleToLongBits(targetPricePerHour), targetPricePerHour != null);
+    }
+
+    RegionAllocations get(Key key, Catalog catalog) {
+        RegionAllocations allocations;
+        synchronized (this.entries) {
+            allocations = this.entries.get(key);
+        }
+        if (allocations == null || allocations.getCatalog() != catalog) {
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return allocations;
+    }
+
+    void put(Key key, RegionAllocations allocations) {
+        synchronized (this.entries) {
+            this.entries.put(key, allocations);
+        }
+    }
+
+    void invalidate() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    CacheStats getStats() {
+        int size;
+        synchronized (this.entries) {
+            size = this.entries.size();
+        }
+        return CacheStats.builder().hits(this.hits.sum()).misses(this.misses.sum()).size(size).build();
+    }
+
+    /**
+     * Hour independent part of a request
+     */
+    static final class Key {
+        private final int cpus;
+        private final long pricePerHourBits;
+        private final boolean priced;
+
+        private Key(int cpus, long pricePerHourBits, boolean priced) {
+            this.cpus = cpus;
+            this.pricePerHourBits = pricePerHourBits;
+            this.priced = priced;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return this.cpus == key.cpus && this.pricePerHourBits == key.pricePerHourBits && this.priced == key.priced;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * this.cpus + Long.hashCode(this.pricePerHourBits)) + (this.priced ? 1 : 0);
+        }
+    }
+}
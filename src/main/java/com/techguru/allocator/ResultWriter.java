@@ -0,0 +1,115 @@
+package com.techguru.allocator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import static com.techguru.allocator.util.AllocatorUtils.dollarValue;
+import static com.techguru.allocator.util.AllocatorUtils.round;
+
+/**
+ * ResultWriter - Writes allocations as json straight to a {@link Writer}, one region at a time.
+ * The output is byte-for-byte the json Gson produces for the equivalent list of {@link com.techguru.allocator.pojo.Result},
+ * including its html safe escaping, without building Result objects or intermediate strings.
+ */
+class ResultWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+    private final char[] buffer = new char[32];
+
+    ResultWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the json array of the allocations of every region priced for the # of hours, in catalog order
+     */
+    void write(RegionAllocations allocations, int hours) throws IOException {
+        this.writer.write('[');
+        int regionCount = allocations.getCatalog().getRegionCount();
+        for (int r = 0; r < regionCount; r++) {
+            if (r > 0) this.writer.write(',');
+            this.writer.write("{\"region\":");
+            writeString(allocations.getCatalog().getRegionName(r));
+            this.writer.write(",\"totalCpus\":");
+            writeInt(allocations.getTotalCpus(r));
+            this.writer.write(",\"totalCost\":\"");
+            writeDollarValue(round(allocations.getCost(r, hours), 2));
+            this.writer.write("\",\"servers\":[");
+            List<Map<String, Integer>> servers = allocations.getServers(r);
+            for (int i = 0; i < servers.size(); i++) {
+                if (i > 0) this.writer.write(',');
+                this.writer.write('{');
+                boolean first = true;
+                for (Map.Entry<String, Integer> server : servers.get(i).entrySet()) {
+                    if (!first) this.writer.write(',');
+                    first = false;
+                    writeString(server.getKey());
+                    this.writer.write(':');
+                    writeInt(server.getValue());
+                }
+                this.writer.write('}');
+            }
+            this.writer.write("]}");
+        }
+        this.writer.write(']');
+    }
+
+    private void writeDollarValue(double value) throws IOException {
+        int length = dollarValue(value, this.buffer);
+        if (length < 0) {
+            this.writer.write(dollarValue(Double.valueOf(value)));
+        } else {
+            this.writer.write(this.buffer, 0, length);
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        long remaining = Math.abs((long) value);
+        int position = this.buffer.length;
+        do {
+            this.buffer[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (value < 0) this.buffer[--position] = '-';
+        this.writer.write(this.buffer, position, this.buffer.length - position);
+    }
+
+    /**
+     * Writes a quoted json string with the same escapes as Gson's html safe JsonWriter
+     */
+    private void writeString(String value) throws IOException {
+        this.writer.write('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '"') replacement = "\\\"";
+            else if (c == '\\') replacement = "\\\\";
+            else if (c == '\t') replacement = "\\t";
+            else if (c == '\b') replacement = "\\b";
+            else if (c == '\n') replacement = "\\n";
+            else if (c == '\r') replacement = "\\r";
+            else if (c == '\f') replacement = "\\f";
+            else if (c < 0x20 || c == '<' || c == '>' || c == '&' || c == '=' || c == '\'' || c == '\u2028' || c == '\u2029') replacement = null;
+            else continue;
+            if (last < i) this.writer.write(value, last, i - last);
+            if (replacement != null) {
+                this.writer.write(replacement);
+            } else {
+                this.writer.write("\\u");
+                this.writer.write(HEX[c >>> 12 & 0xf]);
+                this.writer.write(HEX[c >>> 8 & 0xf]);
+                this.writer.write(HEX[c >>> 4 & 0xf]);
+                this.writer.write(HEX[c & 0xf]);
+            }
+            last = i + 1;
+        }
+        if (last < length) this.writer.write(value, last, length - last);
+        this.writer.write('"');
+    }
+}
@@ -0,0 +1,101 @@
+package com.techguru.allocator;
+
+import com.techguru.allocator.catalog.Allocation;
+import com.techguru.allocator.catalog.Catalog;
+import com.techguru.allocator.pojo.Result;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static com.techguru.allocator.util.AllocatorUtils.dollarValue;
+import static com.techguru.allocator.util.AllocatorUtils.round;
+
+/**
+ * TopRegions - Bounded heap keeping the allocations of the K regions with the lowest total cost for a # of hours.
+ * Regions are ranked on the total cost rounded as in the output and ties are resolved in favour of the region first
+ * in catalog order. Regions where no server can be allocated are left out.
+ */
+class TopRegions {
+
+    private static final Comparator<Entry> CHEAPEST_FIRST = Comparator.<Entry>comparingDouble(e -> e.totalCost).thenComparingInt(e -> e.regionOrdinal);
+
+    private final Catalog catalog;
+    private final int hours;
+    private final int k;
+    private final PriorityQueue<Entry> heap;
+
+    TopRegions(Catalog catalog, int hours, int k) {
+        this.catalog = catalog;
+        this.hours = hours;
+        this.k = k;
+        this.heap = new PriorityQueue<>(Math.min(k, catalog.getRegionCount()) + 1, CHEAPEST_FIRST.reversed());
+    }
+
+    /**
+     * Total cost a region must not exceed to enter the top K, infinite until K regions are kept
+     */
+    double getWorstTotalCost() {
+        return this.heap.size() < this.k ? Double.POSITIVE_INFINITY : this.heap.peek().totalCost;
+    }
+
+    /**
+     * Keeps the allocation of a region if it is among the K cheapest so far. The server type names are only resolved
+     * for kept allocations.
+     */
+    void offer(int regionOrdinal, Allocation allocation) {
+        double totalCost = round(allocation.getCost(this.hours), 2);
+        if (allocation.getTotalCpus() == 0 || !accepts(regionOrdinal, totalCost)) return;
+        add(new Entry(regionOrdinal, allocation.getTotalCpus(), totalCost, RegionAllocations.servers(this.catalog, regionOrdinal, allocation)));
+    }
+
+    /**
+     * Keeps the already allocated servers of a region if it is among the K cheapest so far
+     */
+    void offer(int regionOrdinal, RegionAllocations allocations) {
+        int totalCpus = allocations.getTotalCpus(regionOrdinal);
+        double totalCost = round(allocations.getCost(regionOrdinal, this.hours), 2);
+        if (totalCpus == 0 || !accepts(regionOrdinal, totalCost)) return;
+        add(new Entry(regionOrdinal, totalCpus, totalCost, allocations.getServers(regionOrdinal)));
+    }
+
+    private boolean accepts(int regionOrdinal, double totalCost) {
+        if (this.heap.size() < this.k) return true;
+        Entry worst = this.heap.peek();
+        return totalCost < worst.totalCost || (totalCost == worst.totalCost && regionOrdinal < worst.regionOrdinal);
+    }
+
+    private void add(Entry entry) {
+        this.heap.add(entry);
+        if (this.heap.size() > this.k) this.heap.poll();
+    }
+
+    /**
+     * Gets the kept allocations sorted ascending by total cost
+     */
+    List<Result> toResults() {
+        List<Entry> entries = new ArrayList<>(this.heap);
+        entries.sort(CHEAPEST_FIRST);
+        List<Result> resultList = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            resultList.add(Result.builder().region(this.catalog.getRegionName(e.regionOrdinal)).totalCpus(e.totalCpus).totalCost(dollarValue(e.totalCost)).servers(e.servers).build());
+        }
+        return resultList;
+    }
+
+    private static final class Entry {
+        private final int regionOrdinal;
+        private final int totalCpus;
+        private final double totalCost;
+        private final List<Map<String, Integer>> servers;
+
+        private Entry(int regionOrdinal, int totalCpus, double totalCost, List<Map<String, Integer>> servers) {
+            this.regionOrdinal = regionOrdinal;
+            this.totalCpus = totalCpus;
+            this.totalCost = totalCost;
+            this.servers = servers;
+        }
+    }
+}
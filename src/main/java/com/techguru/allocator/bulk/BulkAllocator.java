@@ -0,0 +1,236 @@
+package com.techguru.allocator.bulk;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.AllocationRequest;
+import com.techguru.allocator.pojo.BulkConfig;
+import com.techguru.allocator.pojo.BulkReport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * BulkAllocator - Allocates newline delimited json requests and writes one json result per line, in input order.
+ * <pre>
+ * in     {"hours": 24, "cpus": 115}
+ *        {"hours": 8, "price": 29.0}
+ * out    [{"region":"us-east","totalCpus":115,...}]
+ *        [{"region":"us-east","totalCpus":...}]
+ * </pre>
+ * A reader thread groups the lines in chunks and submits each chunk to a pool of workers, which allocate the whole
+ * chunk in one pass over the regions. The futures of the chunks are queued in reading order and the calling thread
+ * writes them in that order. The queue is bounded, so reading waits for writing and memory does not grow with the
+ * input. Lines which are not valid requests get {"error": message} and blank lines are skipped.
+ */
+public class BulkAllocator {
+
+    private final Allocator allocator;
+    private final int workers;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+
+    /**
+     * Instantiates a new Bulk allocator.
+     *
+     * @param allocator the allocator, with its catalog already loaded
+     * @param config    the bulk config
+     */
+    public BulkAllocator(Allocator allocator, BulkConfig config) {
+        this.allocator = allocator;
+        this.workers = Math.max(config.getWorkers(), 1);
+        this.chunkSize = Math.max(config.getChunkSize(), 1);
+        this.maxChunksInFlight = Math.max(config.getMaxChunksInFlight(), 1);
+    }
+
+    /**
+     * Allocates every request line of the reader and writes the results to the writer, until the end of the reader.
+     * The reader is not closed, the writer is flushed but not closed.
+     *
+     * @param requests the request lines
+     * @param results  the result lines
+     * @return the # of requests and errors
+     * @throws AllocatorException if the requests cannot be read or the results cannot be written
+     */
+    public BulkReport run(Reader requests, Writer results) throws AllocatorException {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(this.workers);
+        BlockingQueue<Future<Chunk>> queue = new ArrayBlockingQueue<>(this.maxChunksInFlight);
+        Thread reader = new Thread(() -> read(requests, pool, queue), "allocator-bulk-reader");
+        reader.setDaemon(true);
+        reader.start();
+        long requestCount = 0;
+        long errorCount = 0;
+        try {
+            while (true) {
+                Chunk chunk = queue.take().get();
+                if (chunk == Chunk.END) break;
+                results.write(chunk.output);
+                requestCount += chunk.requests;
+                errorCount += chunk.errors;
+            }
+            results.flush();
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while writing results", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AllocatorException) throw (AllocatorException) e.getCause();
+            throw new AllocatorException("Exception while allocating requests", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AllocatorException("Interrupted while allocating requests", e);
+        } finally {
+            reader.interrupt();
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return BulkReport.builder().requests(requestCount).errors(errorCount).seconds(seconds).throughput(requestCount / seconds).build();
+    }
+
+    /**
+     * Reads the lines in chunks and queues the future of each chunk, then the end marker. A read failure is queued
+     * in place of the next chunk.
+     */
+    private void read(Reader requests, ExecutorService pool, BlockingQueue<Future<Chunk>> queue) {
+        try {
+            try {
+                BufferedReader lines = requests instanceof BufferedReader ? (BufferedReader) requests : new BufferedReader(requests, 1 << 16);
+                List<String> chunk = new ArrayList<>(this.chunkSize);
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (line.trim().isEmpty()) continue;
+                    chunk.add(line);
+                    if (chunk.size() == this.chunkSize) {
+                        List<String> full = chunk;
+                        queue.put(pool.submit(() -> allocate(full)));
+                        chunk = new ArrayList<>(this.chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    List<String> last = chunk;
+                    queue.put(pool.submit(() -> allocate(last)));
+                }
+                queue.put(CompletableFuture.completedFuture(Chunk.END));
+            } catch (IOException e) {
+                queue.put(CompletableFuture.failedFuture(new AllocatorException("Exception while reading requests", e)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            //The run failed and stopped the workers, nothing is waiting for the remaining chunks
+        }
+    }
+
+    /**
+     * Allocates the valid requests of a chunk in one pass and interleaves their results with the errors of the
+     * invalid lines. If a request fails validation, each request is allocated on its own so only that one fails.
+     */
+    private Chunk allocate(List<String> lines) {
+        String[] errors = new String[lines.size()];
+        List<AllocationRequest> requests = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                requests.add(parse(lines.get(i)));
+            } catch (AllocatorException e) {
+                errors[i] = error(e.getMessage());
+            }
+        }
+        StringWriter allocated = new StringWriter(requests.size() * 512);
+        try {
+            if (!requests.isEmpty()) this.allocator.getCostsPerRequest(requests, allocated);
+        } catch (AllocatorException e) {
+            allocated = new StringWriter(requests.size() * 512);
+            int q = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                if (errors[i] != null) continue;
+                AllocationRequest request = requests.get(q++);
+                try {
+                    this.allocator.getCosts(request.getHours(), request.getCpus(), request.getPrice(), allocated);
+                    allocated.write('\n');
+                } catch (AllocatorException e2) {
+                    errors[i] = error(e2.getMessage());
+                }
+            }
+        }
+
+        StringBuilder output = new StringBuilder(allocated.getBuffer().length() + lines.size() * 32);
+        StringBuffer results = allocated.getBuffer();
+        int from = 0;
+        int errorCount = 0;
+        for (String error : errors) {
+            if (error != null) {
+                output.append(error).append('\n');
+                errorCount++;
+            } else {
+                int to = results.indexOf("\n", from) + 1;
+                output.append(results, from, to);
+                from = to;
+            }
+        }
+        return new Chunk(output.toString(), lines.size(), errorCount);
+    }
+
+    private static AllocationRequest parse(String line) throws AllocatorException {
+        JsonObject object;
+        try {
+            JsonElement element = JsonParser.parseString(line);
+            if (!element.isJsonObject()) throw new AllocatorException("Not a valid request");
+            object = element.getAsJsonObject();
+        } catch (JsonParseException e) {
+            throw new AllocatorException("Not a valid request");
+        }
+        return AllocationRequest.builder().hours(integer(object, "hours")).cpus(integer(object, "cpus")).price(number(object, "price")).build();
+    }
+
+    private static Double number(JsonObject object, String name) throws AllocatorException {
+        JsonElement value = object.get(name);
+        if (value == null || value.isJsonNull()) return null;
+        if (!value.isJsonPrimitive() || !value.getAsJsonPrimitive().isNumber()) throw new AllocatorException("Invalid " + name + " " + value);
+        return value.getAsDouble();
+    }
+
+    private static Integer integer(JsonObject object, String name) throws AllocatorException {
+        Double value = number(object, name);
+        if (value == null) return null;
+        if (value != Math.rint(value) || Math.abs(value) > Integer.MAX_VALUE) throw new AllocatorException("Invalid " + name + " " + value);
+        return value.intValue();
+    }
+
+    private static String error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error.toString();
+    }
+
+    /**
+     * Result lines of a chunk, each ending with a newline
+     */
+    private static final class Chunk {
+        private static final Chunk END = new Chunk("", 0, 0);
+
+        private final String output;
+        private final int requests;
+        private final int errors;
+
+        private Chunk(String output, int requests, int errors) {
+            this.output = output;
+            this.requests = requests;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.techguru.allocator.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Allocation - Reusable, primitive holder for the servers allocated in a region.
+ * Counts are indexed by the sorted position of the server type in the {@link RegionCatalog}.
+ * The cost over a # of hours is summed per server type, each priced over the hours, in sorted position order, so cents
+ * are rounded on the same value whatever the # of hours.
+ */
+public final class Allocation {
+
+    private int[] counts;
+    private double[] prices;
+    private int size;
+    private int totalCpus;
+
+    /**
+     * Instantiates a new Allocation.
+     *
+     * @param capacity the initial # of server types
+     */
+    public Allocation(int capacity) {
+        this.counts = new int[Math.max(capacity, 1)];
+        this.prices = new double[this.counts.length];
+    }
+
+    /**
+     * Clears the allocation so it can be reused for a region of the given size
+     *
+     * @param regionSize the # of server types in the region
+     */
+    public void reset(int regionSize) {
+        if (regionSize > this.counts.length) {
+            this.counts = new int[regionSize];
+            this.prices = new double[regionSize];
+        } else {
+            Arrays.fill(this.counts, 0, this.size, 0);
+        }
+        this.size = regionSize;
+        this.totalCpus = 0;
+    }
+
+    /**
+     * Adds servers of the server type at the sorted position
+     *
+     * @param position the sorted position
+     * @param count    the # of servers
+     * @param cpus     the # of cpus per server
+     * @param price    the cost per hour per server
+     */
+    public void add(int position, int count, int cpus, double price) {
+        this.counts[position] += count;
+        this.prices[position] = price;
+        this.totalCpus += count * cpus;
+    }
+
+    /**
+     * Gets the # of servers allocated at the sorted position.
+     *
+     * @param position the sorted position
+     * @return the count
+     */
+    public int getCount(int position) {
+        return this.counts[position];
+    }
+
+    /**
+     * Gets the cost per hour per server allocated at the sorted position.
+     *
+     * @param position the sorted position
+     * @return the price
+     */
+    public double getPrice(int position) {
+        return this.prices[position];
+    }
+
+    /**
+     * Gets the total cost of the allocated servers over a # of hours.
+     *
+     * @param hours the # of hours
+     * @return the cost
+     */
+    public double getCost(int hours) {
+        double cost = 0.0;
+        for (int i = 0; i < this.size; i++) {
+            if (this.counts[i] > 0) cost = cost + (this.counts[i] * this.prices[i] * hours);
+        }
+        return cost;
+    }
+
+    /**
+     * Gets the # of server types in the allocated region.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the total # of cpus allocated.
+     *
+     * @return the total cpus
+     */
+    public int getTotalCpus() {
+        return this.totalCpus;
+    }
+
+}
@@ -0,0 +1,281 @@
+package com.techguru.allocator.catalog;
+
+import com.techguru.allocator.exception.AllocatorException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Catalog - Immutable, compiled form of the server types and region cost per hour inputs.
+ * Regions and server types are mapped to ordinals in input order and each region is stored as a {@link RegionCatalog}.
+ */
+public final class Catalog {
+
+    private final String[] serverTypeNames;
+    private final int[] serverTypeCpus;
+    private final Map<String, Integer> serverTypeOrdinals;
+    private final ServerTypeIndex serverTypeIndex;
+    private final String[] regionNames;
+    private final RegionCatalog[] regions;
+    private final Map<String, Integer> regionOrdinals;
+    private final int maxRegionSize;
+    private final long entryCount;
+    private final int[] regionsByCostPerCpu;
+    private final int maxMinCpus;
+    private final int optimalMaxCpus;
+    private final long version;
+
+    Catalog(String[] serverTypeNames, int[] serverTypeCpus, Map<String, Integer> serverTypeOrdinals, String[] regionNames, RegionCatalog[] regions, int optimalMaxCpus) {
+        this(serverTypeNames, serverTypeCpus, serverTypeOrdinals, null, regionNames, regions, ordinals(regionNames), null, optimalMaxCpus, 1L);
+    }
+
+    /**
+     * Instantiates a catalog whose index of regions by best 'cost per hour per CPU' is already built
+     */
+    Catalog(String[] serverTypeNames, int[] serverTypeCpus, String[] regionNames, RegionCatalog[] regions, int[] regionsByCostPerCpu, int optimalMaxCpus) {
+        this(serverTypeNames, serverTypeCpus, ordinals(serverTypeNames), null, regionNames, regions, ordinals(regionNames), regionsByCostPerCpu, optimalMaxCpus, 1L);
+    }
+
+    private Catalog(String[] serverTypeNames, int[] serverTypeCpus, Map<String, Integer> serverTypeOrdinals, ServerTypeIndex serverTypeIndex, String[] regionNames, RegionCatalog[] regions, Map<String, Integer> regionOrdinals, int[] regionsByCostPerCpu, int optimalMaxCpus, long version) {
+        this.serverTypeNames = serverTypeNames;
+        this.serverTypeCpus = serverTypeCpus;
+        this.serverTypeOrdinals = serverTypeOrdinals;
+        this.serverTypeIndex = serverTypeIndex != null ? serverTypeIndex : new ServerTypeIndex(serverTypeCpus, serverTypeOrdinals);
+        this.regionNames = regionNames;
+        this.regions = regions;
+        this.regionOrdinals = regionOrdinals;
+        int max = 0;
+        long entries = 0;
+        int maxMin = 0;
+        for (RegionCatalog region : regions) {
+            max = Math.max(max, region.size());
+            entries += region.size();
+            maxMin = Math.max(maxMin, region.getMinCpus());
+        }
+        this.maxRegionSize = max;
+        this.entryCount = entries;
+        this.maxMinCpus = maxMin;
+        this.regionsByCostPerCpu = regionsByCostPerCpu != null ? regionsByCostPerCpu : IntStream.range(0, regions.length).boxed()
+                .sorted(Comparator.comparingDouble(r -> regions[r].getBestCostPerCpu()))
+                .mapToInt(Integer::intValue).toArray();
+        this.optimalMaxCpus = optimalMaxCpus;
+        this.version = version;
+    }
+
+    private static Map<String, Integer> ordinals(String[] names) {
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            ordinals.put(names[i], i);
+        }
+        return ordinals;
+    }
+
+    /**
+     * Gets the # of server types.
+     *
+     * @return the server type count
+     */
+    public int getServerTypeCount() {
+        return this.serverTypeNames.length;
+    }
+
+    /**
+     * Gets the name of a server type.
+     *
+     * @param serverType the server type ordinal
+     * @return the server type name
+     */
+    public String getServerTypeName(int serverType) {
+        return this.serverTypeNames[serverType];
+    }
+
+    /**
+     * Gets the # of cpus of a server type.
+     *
+     * @param serverType the server type ordinal
+     * @return the cpus
+     */
+    public int getServerTypeCpus(int serverType) {
+        return this.serverTypeCpus[serverType];
+    }
+
+    /**
+     * Gets the # of regions.
+     *
+     * @return the region count
+     */
+    public int getRegionCount() {
+        return this.regions.length;
+    }
+
+    /**
+     * Gets the name of a region.
+     *
+     * @param region the region ordinal
+     * @return the region name
+     */
+    public String getRegionName(int region) {
+        return this.regionNames[region];
+    }
+
+    /**
+     * Gets the sorted server types of a region.
+     *
+     * @param region the region ordinal
+     * @return the region catalog
+     */
+    public RegionCatalog getRegion(int region) {
+        return this.regions[region];
+    }
+
+    /**
+     * Gets the ordinal of a region.
+     *
+     * @param region the region name
+     * @return the region ordinal, or -1 if the region is not in the catalog
+     */
+    public int getRegionOrdinal(String region) {
+        Integer ordinal = this.regionOrdinals.get(region);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Gets the largest # of server types available in a single region.
+     *
+     * @return the max region size
+     */
+    public int getMaxRegionSize() {
+        return this.maxRegionSize;
+    }
+
+    /**
+     * Gets the total # of (region, server type) entries over all regions.
+     *
+     * @return the entry count
+     */
+    public long getEntryCount() {
+        return this.entryCount;
+    }
+
+    /**
+     * Gets the region at a rank of the index of regions sorted ascending by their best 'cost per hour per CPU'.
+     * Regions with the same value keep catalog order and regions without server types come last.
+     *
+     * @param rank the rank, from 0 to the region count
+     * @return the region ordinal
+     */
+    public int getRegionByCostPerCpu(int rank) {
+        return this.regionsByCostPerCpu[rank];
+    }
+
+    /**
+     * Gets the largest # of cpus of the smallest server type of any region.
+     *
+     * @return the max min cpus
+     */
+    public int getMaxMinCpus() {
+        return this.maxMinCpus;
+    }
+
+    /**
+     * Gets the ordinal of a server type.
+     *
+     * @param serverType the server type name
+     * @return the server type ordinal, or -1 if the server type is not in the catalog
+     */
+    public int getServerTypeOrdinal(String serverType) {
+        Integer ordinal = this.serverTypeOrdinals.get(serverType);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Gets the bitsets of the server types by cpu size class, shared by every version of the catalog.
+     *
+     * @return the server type index
+     */
+    public ServerTypeIndex getServerTypeIndex() {
+        return this.serverTypeIndex;
+    }
+
+    /**
+     * Gets the version of the catalog, incremented by every update.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Creates a new catalog with the prices changed. Only the changed regions are re-sorted and get a new
+     * optimal table, all other regions are shared with this catalog. Unknown regions are appended in catalog order.
+     * This catalog is left unchanged.
+     *
+     * @param changes the changed cost per hour of server types in each region, a null cost removes the server type from the region
+     * @return the updated catalog
+     * @throws AllocatorException if a change refers to an unknown server type
+     */
+    public Catalog withPrices(Map<String, ? extends Map<String, Double>> changes) throws AllocatorException {
+        String[] names = this.regionNames;
+        RegionCatalog[] updated = this.regions.clone();
+        Map<String, Integer> ordinals = this.regionOrdinals;
+        for (Map.Entry<String, ? extends Map<String, Double>> e1 : changes.entrySet()) { // for each changed region
+            String region = e1.getKey();
+            int[] serverTypes = new int[e1.getValue().size()];
+            double[] prices = new double[serverTypes.length];
+            int i = 0;
+            for (Map.Entry<String, Double> e2 : e1.getValue().entrySet()) {
+                int serverType = getServerTypeOrdinal(e2.getKey());
+                if (serverType < 0) {
+                    throw new AllocatorException("Invalid server type " + e2.getKey() + " in region " + region);
+                }
+                serverTypes[i] = serverType;
+                prices[i++] = e2.getValue() == null ? Double.NaN : e2.getValue();
+            }
+            Integer ordinal = ordinals.get(region);
+            if (ordinal == null) {
+                if (ordinals == this.regionOrdinals) ordinals = new HashMap<>(this.regionOrdinals);
+                ordinal = names.length;
+                names = Arrays.copyOf(names, ordinal + 1);
+                names[ordinal] = region;
+                updated = Arrays.copyOf(updated, ordinal + 1);
+                updated[ordinal] = CatalogBuilder.sort(new int[0], new double[0], this.serverTypeCpus, 0);
+                ordinals.put(region, ordinal);
+            }
+            updated[ordinal] = update(updated[ordinal], serverTypes, prices);
+        }
+        return new Catalog(this.serverTypeNames, this.serverTypeCpus, this.serverTypeOrdinals, this.serverTypeIndex, names, updated, ordinals, null, this.optimalMaxCpus, this.version + 1);
+    }
+
+    /**
+     * Applies the changed prices to the sorted arrays of a region. The arrays are still mostly sorted so the
+     * insertion sort only moves the changed server types.
+     */
+    private RegionCatalog update(RegionCatalog region, int[] changedServerTypes, double[] changedPrices) {
+        int size = region.size();
+        int[] serverTypes = new int[size + changedServerTypes.length];
+        double[] prices = new double[serverTypes.length];
+        for (int i = 0; i < size; i++) {
+            serverTypes[i] = region.getServerType(i);
+            prices[i] = region.getPrice(i);
+        }
+        for (int c = 0; c < changedServerTypes.length; c++) {
+            int i = 0;
+            while (i < size && serverTypes[i] != changedServerTypes[c]) i++;
+            if (i == size) serverTypes[size++] = changedServerTypes[c];
+            prices[i] = changedPrices[c];
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!Double.isNaN(prices[i])) {
+                serverTypes[kept] = serverTypes[i];
+                prices[kept++] = prices[i];
+            }
+        }
+        return CatalogBuilder.sort(Arrays.copyOf(serverTypes, kept), Arrays.copyOf(prices, kept), this.serverTypeCpus, this.optimalMaxCpus);
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.techguru.allocator.catalog;
+
+import com.techguru.allocator.exception.AllocatorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CatalogBuilder - Collects server types and region prices and compiles them into an immutable {@link Catalog}
+ */
+public final class CatalogBuilder {
+
+    private final Map<String, Integer> serverTypeOrdinals = new HashMap<>();
+    private final List<String> serverTypeNames = new ArrayList<>();
+    private int[] serverTypeCpus = new int[8];
+
+    private final Map<String, RegionPrices> regions = new LinkedHashMap<>();
+
+    private int optimalMaxCpus;
+
+    /**
+     * Adds a server type. Server types must be added before any region price referring to them.
+     *
+     * @param serverType the server type
+     * @param cpus       the # of cpus of the server type
+     * @return the catalog builder
+     * @throws AllocatorException the allocator exception
+     */
+    public CatalogBuilder addServerType(String serverType, int cpus) throws AllocatorException {
+        if (this.serverTypeOrdinals.containsKey(serverType)) {
+            throw new AllocatorException("Duplicate server type " + serverType);
+        }
+        int ordinal = this.serverTypeNames.size();
+        if (ordinal == this.serverTypeCpus.length) {
+            this.serverTypeCpus = Arrays.copyOf(this.serverTypeCpus, ordinal * 2);
+        }
+        this.serverTypeCpus[ordinal] = cpus;
+        this.serverTypeNames.add(serverType);
+        this.serverTypeOrdinals.put(serverType, ordinal);
+        return this;
+    }
+
+    /**
+     * Adds the cost per hour of a server type in a region
+     *
+     * @param region     the region
+     * @param serverType the server type
+     * @param price      the cost per hour
+     * @return the catalog builder
+     * @throws AllocatorException the allocator exception
+     */
+    public CatalogBuilder addPrice(String region, String serverType, double price) throws AllocatorException {
+        Integer ordinal = this.serverTypeOrdinals.get(serverType);
+        if (ordinal == null) {
+            throw new AllocatorException("Invalid server type " + serverType + " in region " + region);
+        }
+        RegionPrices regionPrices = this.regions.computeIfAbsent(region, k -> new RegionPrices());
+        if (!regionPrices.add(ordinal, price)) {
+            throw new AllocatorException("Duplicate server type " + serverType + " in region " + region);
+        }
+        return this;
+    }
+
+    /**
+     * Registers a region without any server types, keeping its position in catalog order
+     *
+     * @param region the region
+     * @return the catalog builder
+     */
+    public CatalogBuilder addRegion(String region) {
+        this.regions.computeIfAbsent(region, k -> new RegionPrices());
+        return this;
+    }
+
+    /**
+     * Checks if a region was added.
+     *
+     * @param region the region
+     * @return true if the region has been added
+     */
+    public boolean containsRegion(String region) {
+        return this.regions.containsKey(region);
+    }
+
+    /**
+     * Builds an {@link OptimalTable} covering up to the # of cpus for every region
+     *
+     * @param optimalMaxCpus the bound of the optimal tables, 0 to skip building them
+     * @return the catalog builder
+     */
+    public CatalogBuilder optimalMaxCpus(int optimalMaxCpus) {
+        this.optimalMaxCpus = optimalMaxCpus;
+        return this;
+    }
+
+    /**
+     * Compiles the collected prices. Server types in each region are sorted based on 'cost per hour per CPU'.
+     *
+     * @return the catalog
+     */
+    public Catalog build() {
+        int[] cpus = Arrays.copyOf(this.serverTypeCpus, this.serverTypeNames.size());
+        String[] regionNames = new String[this.regions.size()];
+        RegionCatalog[] regionCatalogs = new RegionCatalog[this.regions.size()];
+        int r = 0;
+        for (Map.Entry<String, RegionPrices> e : this.regions.entrySet()) {
+            regionNames[r] = e.getKey();
+            regionCatalogs[r] = e.getValue().compile(cpus, this.optimalMaxCpus);
+            r++;
+        }
+        return new Catalog(this.serverTypeNames.toArray(new String[0]), cpus, new HashMap<>(this.serverTypeOrdinals), regionNames, regionCatalogs, this.optimalMaxCpus);
+    }
+
+    /**
+     * Sorts the server types of a region in place, ascending by 'cost per hour per CPU'. The sort is stable so
+     * server types with the same value keep their input order. The optimal table is built right away.
+     */
+    static RegionCatalog sort(int[] serverTypes, double[] prices, int[] serverTypeCpus, int optimalMaxCpus) {
+        int size = serverTypes.length;
+        int[] cpus = new int[size];
+        for (int i = 0; i < size; i++) {
+            cpus[i] = serverTypeCpus[serverTypes[i]];
+        }
+        for (int i = 1; i < size; i++) {
+            int serverType = serverTypes[i];
+            int n = cpus[i];
+            double price = prices[i];
+            double costPerCpu = price / n;
+            int j = i - 1;
+            while (j >= 0 && Double.compare(prices[j] / cpus[j], costPerCpu) > 0) {
+                serverTypes[j + 1] = serverTypes[j];
+                cpus[j + 1] = cpus[j];
+                prices[j + 1] = prices[j];
+                j--;
+            }
+            serverTypes[j + 1] = serverType;
+            cpus[j + 1] = n;
+            prices[j + 1] = price;
+        }
+        RegionCatalog region = new HeapRegionCatalog(serverTypes, cpus, prices, optimalMaxCpus);
+        region.getOptimalTable();
+        return region;
+    }
+
+    /**
+     * Unsorted prices of a region in input order
+     */
+    private static final class RegionPrices {
+        private int[] serverTypes = new int[8];
+        private double[] prices = new double[8];
+        private int size;
+
+        private boolean add(int serverType, double price) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.serverTypes[i] == serverType) return false;
+            }
+            if (this.size == this.serverTypes.length) {
+                this.serverTypes = Arrays.copyOf(this.serverTypes, this.size * 2);
+                this.prices = Arrays.copyOf(this.prices, this.size * 2);
+            }
+            this.serverTypes[this.size] = serverType;
+            this.prices[this.size] = price;
+            this.size++;
+            return true;
+        }
+
+        private RegionCatalog compile(int[] serverTypeCpus, int optimalMaxCpus) {
+            return sort(Arrays.copyOf(this.serverTypes, this.size), Arrays.copyOf(this.prices, this.size), serverTypeCpus, optimalMaxCpus);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.techguru.allocator.catalog;
+
+import com.techguru.allocator.exception.AllocatorException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CatalogFile - Compact binary form of a compiled catalog, written once and memory-mapped by every process start.
+ * Server types of every region are stored pre-sorted in fixed-width arrays and names in a string dictionary, so
+ * mapping a file neither parses nor sorts anything and the prices stay off-heap.
+ * <p>
+ * Layout, little endian, each section following the previous one:
+ * <pre>
+ * header                 int magic, int format, int # of server types S, int # of regions R, int # of entries E, int # of string bytes B
+ * prices                 double[E], the sorted cost per hour of every (region, server type) entry, region after region
+ * server types           int[E], the server type ordinal of every entry
+ * cpus                   int[E], the # of cpus of every entry
+ * server type cpus       int[S]
+ * region starts          int[R + 1], the index of the first entry of every region
+ * region min cpus        int[R]
+ * regions by cost        int[R], the region ordinals sorted by best 'cost per hour per CPU'
+ * string offsets         int[S + R + 1], the offset of every name in the string bytes, server types then regions
+ * string bytes           byte[B], the UTF-8 names
+ * </pre>
+ */
+public final class CatalogFile {
+
+    private static final int MAGIC = 0x434C4152;
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+    private CatalogFile() {
+    }
+
+    /**
+     * Validates and compiles both jsons and writes the catalog to a file
+     *
+     * @param serverTypesJson       the server types json
+     * @param regionCostPerHourJson the region cost per hour json
+     * @param catalogFile           the catalog file to write
+     * @throws AllocatorException if an input is not valid or the file cannot be written
+     */
+    public static void compile(Reader serverTypesJson, Reader regionCostPerHourJson, Path catalogFile) throws AllocatorException {
+        write(CatalogReader.read(serverTypesJson, regionCostPerHourJson, 0), catalogFile);
+    }
+
+    /**
+     * Writes a catalog to a file
+     *
+     * @param catalog     the catalog
+     * @param catalogFile the catalog file to write
+     * @throws AllocatorException if the file cannot be written
+     */
+    public static void write(Catalog catalog, Path catalogFile) throws AllocatorException {
+        int serverTypeCount = catalog.getServerTypeCount();
+        int regionCount = catalog.getRegionCount();
+        byte[][] names = new byte[serverTypeCount + regionCount][];
+        long stringBytes = 0;
+        for (int i = 0; i < names.length; i++) {
+            String name = i < serverTypeCount ? catalog.getServerTypeName(i) : catalog.getRegionName(i - serverTypeCount);
+            names[i] = name.getBytes(StandardCharsets.UTF_8);
+            stringBytes += names[i].length;
+        }
+        long entryCount = catalog.getEntryCount();
+        long size = HEADER_BYTES + entryCount * (Double.BYTES + 2 * Integer.BYTES)
+                + (serverTypeCount + 3L * regionCount + 1 + serverTypeCount + regionCount + 1) * Integer.BYTES + stringBytes;
+        if (size > Integer.MAX_VALUE) throw new AllocatorException("Catalog too large for a catalog file");
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT).putInt(serverTypeCount).putInt(regionCount).putInt((int) entryCount).putInt((int) stringBytes);
+        for (int r = 0; r < regionCount; r++) {
+            RegionCatalog region = catalog.getRegion(r);
+            for (int i = 0; i < region.size(); i++) buffer.putDouble(region.getPrice(i));
+        }
+        for (int r = 0; r < regionCount; r++) {
+            RegionCatalog region = catalog.getRegion(r);
+            for (int i = 0; i < region.size(); i++) buffer.putInt(region.getServerType(i));
+        }
+        for (int r = 0; r < regionCount; r++) {
+            RegionCatalog region = catalog.getRegion(r);
+            for (int i = 0; i < region.size(); i++) buffer.putInt(region.getCpus(i));
+        }
+        for (int t = 0; t < serverTypeCount; t++) buffer.putInt(catalog.getServerTypeCpus(t));
+        int start = 0;
+        for (int r = 0; r < regionCount; r++) {
+            buffer.putInt(start);
+            start += catalog.getRegion(r).size();
+        }
+        buffer.putInt(start);
+        for (int r = 0; r < regionCount; r++) buffer.putInt(catalog.getRegion(r).getMinCpus());
+        for (int rank = 0; rank < regionCount; rank++) buffer.putInt(catalog.getRegionByCostPerCpu(rank));
+        int offset = 0;
+        for (byte[] name : names) {
+            buffer.putInt(offset);
+            offset += name.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] name : names) buffer.put(name);
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while writing catalog file", e);
+        }
+    }
+
+    /**
+     * Memory-maps a catalog file. Only the names and the start of every region are read, the prices, cpus and
+     * server types are read from the mapped file on every access. Optimal tables are built per region on first use.
+     *
+     * @param catalogFile    the catalog file
+     * @param optimalMaxCpus the bound of the optimal tables, 0 to skip building them
+     * @return the catalog
+     * @throws AllocatorException if the file cannot be read or is not a catalog file
+     */
+    public static Catalog map(Path catalogFile, int optimalMaxCpus) throws AllocatorException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) throw new AllocatorException("Not a valid catalog file");
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while reading catalog file", e);
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        int serverTypeCount = buffer.getInt(8);
+        int regionCount = buffer.getInt(12);
+        int entryCount = buffer.getInt(16);
+        int stringBytes = buffer.getInt(20);
+        int pricesOffset = HEADER_BYTES;
+        int serverTypesOffset = pricesOffset + entryCount * Double.BYTES;
+        int cpusOffset = serverTypesOffset + entryCount * Integer.BYTES;
+        int serverTypeCpusOffset = cpusOffset + entryCount * Integer.BYTES;
+        int regionStartsOffset = serverTypeCpusOffset + serverTypeCount * Integer.BYTES;
+        int minCpusOffset = regionStartsOffset + (regionCount + 1) * Integer.BYTES;
+        int regionsByCostOffset = minCpusOffset + regionCount * Integer.BYTES;
+        int stringOffsetsOffset = regionsByCostOffset + regionCount * Integer.BYTES;
+        int stringBytesOffset = stringOffsetsOffset + (serverTypeCount + regionCount + 1) * Integer.BYTES;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT || serverTypeCount < 0 || regionCount < 0 || entryCount < 0 || stringBytes < 0
+                || (long) stringBytesOffset + stringBytes != buffer.capacity()) {
+            throw new AllocatorException("Not a valid catalog file");
+        }
+
+        int[] serverTypeCpus = new int[serverTypeCount];
+        for (int t = 0; t < serverTypeCount; t++) serverTypeCpus[t] = buffer.getInt(serverTypeCpusOffset + t * Integer.BYTES);
+        String[] serverTypeNames = new String[serverTypeCount];
+        String[] regionNames = new String[regionCount];
+        byte[] name = new byte[0];
+        for (int i = 0; i < serverTypeCount + regionCount; i++) {
+            int from = buffer.getInt(stringOffsetsOffset + i * Integer.BYTES);
+            int length = buffer.getInt(stringOffsetsOffset + (i + 1) * Integer.BYTES) - from;
+            if (name.length < length) name = new byte[length];
+            ByteBuffer bytes = buffer.duplicate();
+            bytes.position(stringBytesOffset + from);
+            bytes.get(name, 0, length);
+            String decoded = new String(name, 0, length, StandardCharsets.UTF_8);
+            if (i < serverTypeCount) serverTypeNames[i] = decoded;
+            else regionNames[i - serverTypeCount] = decoded;
+        }
+        RegionCatalog[] regions = new RegionCatalog[regionCount];
+        int[] regionsByCostPerCpu = new int[regionCount];
+        for (int r = 0; r < regionCount; r++) {
+            int start = buffer.getInt(regionStartsOffset + r * Integer.BYTES);
+            int size = buffer.getInt(regionStartsOffset + (r + 1) * Integer.BYTES) - start;
+            regions[r] = new MappedRegionCatalog(buffer, pricesOffset + start * Double.BYTES, serverTypesOffset + start * Integer.BYTES,
+                    cpusOffset + start * Integer.BYTES, size, buffer.getInt(minCpusOffset + r * Integer.BYTES), optimalMaxCpus);
+            regionsByCostPerCpu[r] = buffer.getInt(regionsByCostOffset + r * Integer.BYTES);
+        }
+        return new Catalog(serverTypeNames, serverTypeCpus, regionNames, regions, regionsByCostPerCpu, optimalMaxCpus);
+    }
+}
@@ -0,0 +1,82 @@
+package com.techguru.allocator.catalog;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.techguru.allocator.exception.AllocatorException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * CatalogReader - Streaming loader which validates the server types and region cost per hour jsons and fills a
+ * {@link CatalogBuilder} in a single pass over the input, without materialising either document.
+ */
+public final class CatalogReader {
+
+    private CatalogReader() {
+    }
+
+    /**
+     * Reads both jsons into a catalog
+     *
+     * @param serverTypesJson       the server types json, an object of server type to # of cpus
+     * @param regionCostPerHourJson the region cost per hour json, an object of region to an object of server type to cost per hour
+     * @param optimalMaxCpus        the bound of the optimal tables, 0 to skip building them
+     * @return the catalog
+     * @throws AllocatorException if an input is not a valid json or has a region twice, or a region refers to an unknown server type
+     */
+    public static Catalog read(Reader serverTypesJson, Reader regionCostPerHourJson, int optimalMaxCpus) throws AllocatorException {
+        CatalogBuilder builder = new CatalogBuilder().optimalMaxCpus(optimalMaxCpus);
+        try {
+            readServerTypes(newJsonReader(serverTypesJson), builder);
+            readRegionCostPerHour(newJsonReader(regionCostPerHourJson), builder);
+        } catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+            throw new AllocatorException("Not a valid json", e);
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while creating allocator", e);
+        }
+        return builder.build();
+    }
+
+    private static JsonReader newJsonReader(Reader reader) {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        return jsonReader;
+    }
+
+    private static void readServerTypes(JsonReader reader, CatalogBuilder builder) throws IOException, AllocatorException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String serverType = reader.nextName();
+            builder.addServerType(serverType, reader.nextInt());
+        }
+        reader.endObject();
+        endDocument(reader);
+    }
+
+    private static void readRegionCostPerHour(JsonReader reader, CatalogBuilder builder) throws IOException, AllocatorException {
+        reader.beginObject();
+        while (reader.hasNext()) { // for each region
+            String region = reader.nextName();
+            //Rejected as Gson rejects a duplicate map key
+            if (builder.containsRegion(region)) throw new MalformedJsonException("Duplicate region " + region);
+            builder.addRegion(region);
+            reader.beginObject();
+            while (reader.hasNext()) { // for each server in region
+                String serverType = reader.nextName();
+                builder.addPrice(region, serverType, reader.nextDouble());
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        endDocument(reader);
+    }
+
+    private static void endDocument(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Unexpected content after the json document");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.techguru.allocator.catalog;
+
+/**
+ * HeapRegionCatalog - Region catalog stored as primitive arrays on the heap
+ */
+final class HeapRegionCatalog extends RegionCatalog {
+
+    private final int[] serverTypes;
+    private final int[] cpus;
+    private final double[] prices;
+    private final int minCpus;
+
+    /**
+     * Instantiates a new Heap region catalog. The arrays must already be sorted by 'cost per hour per CPU'.
+     *
+     * @param serverTypes    the server type ordinals
+     * @param cpus           the # of cpus of each server type
+     * @param prices         the cost per hour of each server type
+     * @param optimalMaxCpus the bound of the optimal table, 0 to skip building it
+     */
+    HeapRegionCatalog(int[] serverTypes, int[] cpus, double[] prices, int optimalMaxCpus) {
+        super(optimalMaxCpus);
+        this.serverTypes = serverTypes;
+        this.cpus = cpus;
+        this.prices = prices;
+        int min = 0;
+        for (int n : cpus) {
+            if (min == 0 || n < min) min = n;
+        }
+        this.minCpus = min;
+    }
+
+    @Override
+    public int size() {
+        return this.serverTypes.length;
+    }
+
+    @Override
+    public int getServerType(int position) {
+        return this.serverTypes[position];
+    }
+
+    @Override
+    public int getCpus(int position) {
+        return this.cpus[position];
+    }
+
+    @Override
+    public double getPrice(int position) {
+        return this.prices[position];
+    }
+
+    @Override
+    public int getMinCpus() {
+        return this.minCpus;
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.techguru.allocator.catalog;
+
+import com.techguru.allocator.exception.AllocatorException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HourlyPrices - Cost per hour series of (region, server type) pairs, for prices varying with the hour.
+ * Every series has the same length, its period, and repeats from hour 0, e.g. 24 prices for the time of day or 168 for
+ * the hour of the week. Each series is stored as prefix sums, so the cost of any window of hours is a constant time
+ * lookup whatever its length. Pairs without a series cost their catalog price every hour.
+ * <p>
+ * The ranking of the server types of every region by window cost per cpu is built once per window and kept in a
+ * bounded LRU map, keyed on the start hour within the period and the # of hours.
+ */
+public final class HourlyPrices {
+
+    private static final int MAX_WINDOWS = 256;
+
+    private final int period;
+    private final double[][][] prefixSums;
+    private final Map<Long, Window> windows;
+
+    private HourlyPrices(int period, double[][][] prefixSums) {
+        this.period = period;
+        this.prefixSums = prefixSums;
+        this.windows = new LinkedHashMap<Long, Window>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Window> eldest) {
+                return size() > MAX_WINDOWS;
+            }
+        };
+    }
+
+    /**
+     * Validates the series of every (region, server type) pair and builds their prefix sums
+     *
+     * @param catalog      the catalog whose regions and server types the series refer to
+     * @param hourlyPrices the cost per hour series of server types in each region, starting at hour 0
+     * @return the hourly prices
+     * @throws AllocatorException if a series refers to an unknown region or to a server type not priced in the region,
+     *                            has a negative price, or is not as long as the other series
+     */
+    public static HourlyPrices of(Catalog catalog, Map<String, ? extends Map<String, double[]>> hourlyPrices) throws AllocatorException {
+        double[][][] prefixSums = new double[catalog.getRegionCount()][][];
+        int period = 0;
+        for (Map.Entry<String, ? extends Map<String, double[]>> e1 : hourlyPrices.entrySet()) { // for each region
+            String region = e1.getKey();
+            int regionOrdinal = catalog.getRegionOrdinal(region);
+            if (regionOrdinal < 0) throw new AllocatorException("Invalid region " + region);
+            prefixSums[regionOrdinal] = new double[catalog.getServerTypeCount()][];
+            for (Map.Entry<String, double[]> e2 : e1.getValue().entrySet()) {
+                int serverType = catalog.getServerTypeOrdinal(e2.getKey());
+                if (serverType < 0 || position(catalog.getRegion(regionOrdinal), serverType) < 0) {
+                    throw new AllocatorException("Invalid server type " + e2.getKey() + " in region " + region);
+                }
+                double[] series = e2.getValue();
+                if (period == 0) period = series.length;
+                if (series.length == 0 || series.length != period) {
+                    throw new AllocatorException("Invalid price series of server type " + e2.getKey() + " in region " + region);
+                }
+                double[] sums = new double[period + 1];
+                for (int h = 0; h < period; h++) {
+                    if (!(series[h] >= 0)) throw new AllocatorException("Invalid price series of server type " + e2.getKey() + " in region " + region);
+                    sums[h + 1] = sums[h] + series[h];
+                }
+                prefixSums[regionOrdinal][serverType] = sums;
+            }
+        }
+        return new HourlyPrices(Math.max(period, 1), prefixSums);
+    }
+
+    /**
+     * Gets hourly prices without any series, every pair costs its catalog price every hour
+     *
+     * @return the hourly prices
+     */
+    public static HourlyPrices none() {
+        return new HourlyPrices(1, new double[0][][]);
+    }
+
+    private static int position(RegionCatalog region, int serverType) {
+        for (int i = 0; i < region.size(); i++) {
+            if (region.getServerType(i) == serverType) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the # of hours after which the series repeat.
+     *
+     * @return the period
+     */
+    public int getPeriod() {
+        return this.period;
+    }
+
+    /**
+     * Gets the cost of a server of a region over a window of hours: the whole periods in the window times the sum of
+     * the series, plus the difference of two prefix sums for the rest, wrapping around the end of the series once.
+     *
+     * @param catalog   the catalog
+     * @param region    the region ordinal
+     * @param position  the sorted position of the server type in the region
+     * @param startHour the first hour of the window
+     * @param hours     the # of hours of the window
+     * @return the cost of the window
+     */
+    public double getCost(Catalog catalog, int region, int position, int startHour, int hours) {
+        RegionCatalog regionCatalog = catalog.getRegion(region);
+        double[][] regionSums = region < this.prefixSums.length ? this.prefixSums[region] : null;
+        double[] sums = regionSums == null ? null : regionSums[regionCatalog.getServerType(position)];
+        if (sums == null) return regionCatalog.getPrice(position) * hours;
+        int from = startHour % this.period;
+        int rest = hours % this.period;
+        double cost = (double) (hours / this.period) * sums[this.period];
+        if (from + rest <= this.period) return cost + sums[from + rest] - sums[from];
+        return cost + sums[this.period] - sums[from] + sums[from + rest - this.period];
+    }
+
+    /**
+     * Gets the average cost per hour and the ranking of the server types of every region for a window, built on first
+     * use for the catalog. Windows starting at the same hour of the period and as long cost the same.
+     *
+     * @param catalog   the catalog
+     * @param startHour the first hour of the window
+     * @param hours     the # of hours of the window, positive
+     * @return the window
+     */
+    public Window getWindow(Catalog catalog, int startHour, int hours) {
+        Long key = ((long) (startHour % this.period) << 32) | (hours & 0xFFFFFFFFL);
+        Window window;
+        synchronized (this.windows) {
+            window = this.windows.get(key);
+        }
+        if (window == null || window.catalog != catalog) {
+            window = new Window(this, catalog, startHour, hours);
+            synchronized (this.windows) {
+                this.windows.put(key, window);
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Window - Average cost per hour of every server type of every region over a window of hours, with the sorted
+     * positions of each region ranked by ascending window cost per cpu. Ties keep the catalog order. Pairs without a
+     * series average exactly their catalog price.
+     */
+    public static final class Window {
+
+        private final Catalog catalog;
+        private final int[][] ranking;
+        private final double[][] costs;
+
+        private Window(HourlyPrices hourlyPrices, Catalog catalog, int startHour, int hours) {
+            this.catalog = catalog;
+            this.ranking = new int[catalog.getRegionCount()][];
+            this.costs = new double[catalog.getRegionCount()][];
+            for (int r = 0; r < catalog.getRegionCount(); r++) { // for each region
+                RegionCatalog region = catalog.getRegion(r);
+                int size = region.size();
+                int[] positions = new int[size];
+                double[] cost = new double[size];
+                double[] costPerCpu = new double[size];
+                double[][] regionSums = r < hourlyPrices.prefixSums.length ? hourlyPrices.prefixSums[r] : null;
+                for (int i = 0; i < size; i++) {
+                    boolean flat = regionSums == null || regionSums[region.getServerType(i)] == null;
+                    cost[i] = flat ? region.getPrice(i) : hourlyPrices.getCost(catalog, r, i, startHour, hours) / hours;
+                    costPerCpu[i] = cost[i] / region.getCpus(i);
+                    //Stable insertion sort, the positions are already sorted by flat cost per cpu
+                    int j = i;
+                    while (j > 0 && costPerCpu[positions[j - 1]] > costPerCpu[i]) {
+                        positions[j] = positions[j - 1];
+                        j--;
+                    }
+                    positions[j] = i;
+                }
+                this.ranking[r] = positions;
+                this.costs[r] = cost;
+            }
+        }
+
+        /**
+         * Gets the sorted position of the server type of a region at a rank of the window.
+         *
+         * @param region the region ordinal
+         * @param rank   the rank, 0 for the lowest window cost per cpu
+         * @return the sorted position
+         */
+        public int getPosition(int region, int rank) {
+            return this.ranking[region][rank];
+        }
+
+        /**
+         * Gets the average cost per hour of a server of a region over the window.
+         *
+         * @param region   the region ordinal
+         * @param position the sorted position
+         * @return the average cost per hour
+         */
+        public double getCostPerHour(int region, int position) {
+            return this.costs[region][position];
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.techguru.allocator.catalog;
+
+import java.nio.ByteBuffer;
+
+/**
+ * MappedRegionCatalog - Region catalog read straight from the fixed-width arrays of a memory-mapped catalog file.
+ * Only the position of the region in the arrays is kept on the heap.
+ */
+final class MappedRegionCatalog extends RegionCatalog {
+
+    private final ByteBuffer buffer;
+    private final int pricesOffset;
+    private final int serverTypesOffset;
+    private final int cpusOffset;
+    private final int size;
+    private final int minCpus;
+
+    /**
+     * Instantiates a new Mapped region catalog.
+     *
+     * @param buffer            the mapped catalog file
+     * @param pricesOffset      the offset of the first price of the region
+     * @param serverTypesOffset the offset of the first server type ordinal of the region
+     * @param cpusOffset        the offset of the first # of cpus of the region
+     * @param size              the # of server types of the region
+     * @param minCpus           the # of cpus of the smallest server type of the region
+     * @param optimalMaxCpus    the bound of the optimal table, 0 to skip building it
+     */
+    MappedRegionCatalog(ByteBuffer buffer, int pricesOffset, int serverTypesOffset, int cpusOffset, int size, int minCpus, int optimalMaxCpus) {
+        super(optimalMaxCpus);
+        this.buffer = buffer;
+        this.pricesOffset = pricesOffset;
+        this.serverTypesOffset = serverTypesOffset;
+        this.cpusOffset = cpusOffset;
+        this.size = size;
+        this.minCpus = minCpus;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public int getServerType(int position) {
+        return this.buffer.getInt(this.serverTypesOffset + position * Integer.BYTES);
+    }
+
+    @Override
+    public int getCpus(int position) {
+        return this.buffer.getInt(this.cpusOffset + position * Integer.BYTES);
+    }
+
+    @Override
+    public double getPrice(int position) {
+        return this.buffer.getDouble(this.pricesOffset + position * Double.BYTES);
+    }
+
+    @Override
+    public int getMinCpus() {
+        return this.minCpus;
+    }
+
+}
@@ -0,0 +1,292 @@
+package com.techguru.allocator.catalog;
+
+import java.util.Arrays;
+
+/**
+ * OptimalTable - Unbounded knapsack table of a region giving the minimum cost per hour for every # of cpus up to a bound.
+ * Each entry stores the cost and a back-pointer to the last server type used, so an allocation is rebuilt by walking
+ * the back-pointers instead of searching per request.
+ * The non-dominated (cpus, cost per hour) points of the table form a frontier sorted ascending on both values,
+ * which answers budget bounded queries with a binary search.
+ */
+public final class OptimalTable {
+
+    private final RegionCatalog region;
+    private final int maxCpus;
+    private final double[] cost;
+    private final short[] last;
+    private final int[] frontierCpus;
+    private final double[] frontierCost;
+
+    /**
+     * Builds the table of a region. Ties are resolved in favour of the server type with the lower 'cost per hour per CPU'.
+     *
+     * @param region  the region catalog
+     * @param maxCpus the largest # of cpus covered by the table
+     */
+    OptimalTable(RegionCatalog region, int maxCpus) {
+        this.region = region;
+        this.maxCpus = maxCpus;
+        this.cost = new double[maxCpus + 1];
+        this.last = new short[maxCpus + 1];
+        Arrays.fill(this.cost, 1, maxCpus + 1, Double.POSITIVE_INFINITY);
+        int size = region.size();
+        for (int c = 1; c <= maxCpus; c++) {
+            double best = Double.POSITIVE_INFINITY;
+            int bestPosition = -1;
+            for (int i = 0; i < size; i++) {
+                int n = region.getCpus(i);
+                if (n <= c) {
+                    double candidate = this.cost[c - n] + region.getPrice(i);
+                    if (candidate < best) {
+                        best = candidate;
+                        bestPosition = i;
+                    }
+                }
+            }
+            if (bestPosition >= 0) {
+                this.cost[c] = best;
+                this.last[c] = (short) (bestPosition + 1);
+            }
+        }
+
+        //Frontier - Keep a point only if every point with more cpus costs more
+        int[] cpus = new int[maxCpus + 1];
+        int points = 0;
+        double min = Double.POSITIVE_INFINITY;
+        for (int c = maxCpus; c >= 0; c--) {
+            if (this.cost[c] < min) {
+                min = this.cost[c];
+                cpus[points++] = c;
+            }
+        }
+        this.frontierCpus = new int[points];
+        this.frontierCost = new double[points];
+        for (int i = 0; i < points; i++) {
+            this.frontierCpus[i] = cpus[points - 1 - i];
+            this.frontierCost[i] = this.cost[this.frontierCpus[i]];
+        }
+    }
+
+    /**
+     * Gets the largest # of cpus covered by the table.
+     *
+     * @return the max cpus
+     */
+    public int getMaxCpus() {
+        return this.maxCpus;
+    }
+
+    /**
+     * Allocates the cheapest mix of servers with the largest # of cpus not exceeding the target.
+     * Targets above the table bound take the server type with the lowest 'cost per hour per CPU' for the remainder
+     * above the bound and look up the tail exactly.
+     *
+     * @param targetCpus the required # of cpus
+     * @param allocation the allocation to fill
+     */
+    public void allocateByCpus(int targetCpus, Allocation allocation) {
+        if (targetCpus <= 0 || this.region.size() == 0) return;
+        int tail = targetCpus;
+        if (targetCpus > this.maxCpus) {
+            int n = this.region.getCpus(0);
+            int allocated = (targetCpus - this.maxCpus + n - 1) / n;
+            tail = targetCpus - allocated * n;
+            if (tail < 0) {
+                allocated = targetCpus / n;
+                tail = Math.min(targetCpus - allocated * n, this.maxCpus);
+            }
+            allocation.add(0, allocated, n, this.region.getPrice(0));
+        }
+        reconstruct(reachable(tail), allocation);
+    }
+
+    /**
+     * Sweeps {@link #allocateByCpus(int, Allocation)} over consecutive targets from the first one, in a single pass over
+     * the back-pointers. The per server type counts of every exactly reachable # of cpus are the counts of the entry
+     * its back-pointer leads to plus one server, so they are kept in a ring of the last entries, as long as the
+     * largest server type plus the first one, instead of walking the back-pointer chain of every point. The ring is
+     * seeded by walking the chains of the entries just below the first target. Within the table the reachable # of
+     * cpus of a target is the one of the previous target unless the target itself is reachable, above the table bound
+     * the tail of a point is an entry of the ring. Each point is priced as {@link Allocation#getCost(int)} prices the
+     * allocation of that call.
+     *
+     * @param fromCpus  the first target # of cpus
+     * @param hours     the # of hours the points are priced for
+     * @param totalCpus the allocated # of cpus of every target, filled
+     * @param totalCost the cost over the hours of every target, filled
+     */
+    public void sweepByCpus(int fromCpus, int hours, int[] totalCpus, double[] totalCost) {
+        int size = this.region.size();
+        if (size == 0) return;
+        int n = this.region.getCpus(0);
+        int maxN = 0;
+        double[] prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            maxN = Math.max(maxN, this.region.getCpus(i));
+            prices[i] = this.region.getPrice(i);
+        }
+        //Counts of the reachable # of cpus c at c % window, the entries of the other # of cpus are stale
+        int window = n + maxN;
+        int[][] counts = new int[window][size];
+        int start = Math.max(Math.min(fromCpus, this.maxCpus + 1), 1);
+        for (int c = Math.max(start - window, 0); c < start; c++) {
+            if (c == 0 || this.last[c] != 0) {
+                int[] entry = counts[c % window];
+                Arrays.fill(entry, 0);
+                for (int cpus = c; cpus > 0; cpus -= this.region.getCpus(this.last[cpus] - 1)) entry[this.last[cpus] - 1]++;
+            }
+        }
+        int reachable = reachable(start - 1);
+        for (int p = 0; p < totalCpus.length; p++) {
+            int targetCpus = fromCpus + p;
+            if (targetCpus <= 0) continue;
+            if (targetCpus <= this.maxCpus) {
+                if (this.last[targetCpus] != 0) {
+                    int position = this.last[targetCpus] - 1;
+                    int[] entry = counts[targetCpus % window];
+                    System.arraycopy(counts[(targetCpus - this.region.getCpus(position)) % window], 0, entry, 0, size);
+                    entry[position]++;
+                    reachable = targetCpus;
+                }
+                totalCpus[p] = reachable;
+                totalCost[p] = cost(counts[reachable % window], 0, prices, hours);
+            } else {
+                int allocated = (targetCpus - this.maxCpus + n - 1) / n;
+                int tail = targetCpus - allocated * n;
+                if (tail < 0) {
+                    allocated = targetCpus / n;
+                    tail = Math.min(targetCpus - allocated * n, this.maxCpus);
+                }
+                tail = reachable(tail);
+                totalCpus[p] = allocated * n + tail;
+                totalCost[p] = cost(counts[tail % window], allocated, prices, hours);
+            }
+        }
+    }
+
+    /**
+     * Cost over the hours of the counts plus servers of the first server type, summed as {@link Allocation#getCost(int)}
+     */
+    private static double cost(int[] counts, int allocated, double[] prices, int hours) {
+        double cost = 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            int count = i == 0 ? counts[i] + allocated : counts[i];
+            if (count > 0) cost = cost + (count * prices[i] * hours);
+        }
+        return cost;
+    }
+
+    /**
+     * Allocates the largest # of cpus whose cost per hour does not exceed the target.
+     * Targets above the most expensive frontier point take the server type with the lowest 'cost per hour per CPU'
+     * for the remainder and search the frontier for the tail.
+     *
+     * @param targetPricePerHour the maximum cost per hour
+     * @param allocation         the allocation to fill
+     */
+    public void allocateByPrice(double targetPricePerHour, Allocation allocation) {
+        if (!(targetPricePerHour > 0) || this.region.size() == 0) return;
+        double maxCost = this.frontierCost[this.frontierCost.length - 1];
+        long allocated = 0;
+        if (targetPricePerHour > maxCost) allocated = (long) Math.ceil((targetPricePerHour - maxCost) / this.region.getPrice(0));
+        allocateWithinBounds(allocated, Integer.MAX_VALUE, targetPricePerHour, allocation);
+    }
+
+    /**
+     * Allocates the largest # of cpus not exceeding the target cpus whose cost per hour does not exceed the target price.
+     * If the cheapest mix for the target cpus is within budget it is used, otherwise the best frontier point within
+     * both bounds is taken. When both targets are above the table, the server type with the lowest
+     * 'cost per hour per CPU' takes the remainder.
+     *
+     * @param targetCpus         the required # of cpus
+     * @param targetPricePerHour the maximum cost per hour
+     * @param allocation         the allocation to fill
+     */
+    public void allocateByCpusAndPrice(int targetCpus, double targetPricePerHour, Allocation allocation) {
+        if (targetCpus <= 0 || !(targetPricePerHour > 0) || this.region.size() == 0) return;
+        double maxCost = this.frontierCost[this.frontierCost.length - 1];
+        long allocated = 0;
+        if (targetCpus > this.maxCpus && targetPricePerHour > maxCost) {
+            int n = this.region.getCpus(0);
+            allocated = Math.max((targetCpus - this.maxCpus + n - 1) / n, (long) Math.ceil((targetPricePerHour - maxCost) / this.region.getPrice(0)));
+        }
+        allocateWithinBounds(allocated, targetCpus, targetPricePerHour, allocation);
+    }
+
+    /**
+     * Takes up to the # of servers of the first server type, then the best table entry within the remaining bounds
+     */
+    private void allocateWithinBounds(long allocated, int targetCpus, double targetPricePerHour, Allocation allocation) {
+        int n = this.region.getCpus(0);
+        double price = this.region.getPrice(0);
+        allocated = Math.min(allocated, Math.min(targetCpus / n, (long) (targetPricePerHour / price)));
+        if (allocated > 0) {
+            allocation.add(0, (int) allocated, n, price);
+            targetCpus -= (int) allocated * n;
+            targetPricePerHour -= allocated * price;
+        }
+        int tail = reachable(Math.min(targetCpus, this.maxCpus));
+        if (this.cost[tail] > targetPricePerHour) {
+            int i = Math.min(floor(this.frontierCpus, tail), floor(this.frontierCost, targetPricePerHour));
+            tail = i < 0 ? 0 : this.frontierCpus[i];
+        }
+        reconstruct(tail, allocation);
+    }
+
+    /**
+     * Index of the last element not greater than the key, -1 if there is none
+     */
+    private static int floor(int[] values, int key) {
+        int low = 0;
+        int high = values.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) low = mid + 1;
+            else high = mid - 1;
+        }
+        return high;
+    }
+
+    /**
+     * Index of the last element not greater than the key, -1 if there is none
+     */
+    private static int floor(double[] values, double key) {
+        int low = 0;
+        int high = values.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) low = mid + 1;
+            else high = mid - 1;
+        }
+        return high;
+    }
+
+    /**
+     * Largest # of cpus not exceeding the input which can be allocated exactly
+     */
+    int reachable(int cpus) {
+        while (cpus > 0 && this.last[cpus] == 0) cpus--;
+        return cpus;
+    }
+
+    /**
+     * Minimum cost per hour of allocating exactly the # of cpus, infinite if it cannot be allocated
+     */
+    double cost(int cpus) {
+        return this.cost[cpus];
+    }
+
+    /**
+     * Walks the back-pointers of an exactly reachable # of cpus and adds the servers to the allocation
+     */
+    void reconstruct(int cpus, Allocation allocation) {
+        while (cpus > 0) {
+            int position = this.last[cpus] - 1;
+            int n = this.region.getCpus(position);
+            allocation.add(position, 1, n, this.region.getPrice(position));
+            cpus -= n;
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.techguru.allocator.catalog;
+
+/**
+ * RegionCatalog - Server types of a single region, sorted by 'cost per hour per CPU'.
+ * Server types are read by sorted position, either from primitive arrays on the heap or from a memory-mapped catalog file.
+ */
+public abstract class RegionCatalog {
+
+    private final int optimalMaxCpus;
+    private volatile OptimalTable optimalTable;
+
+    /**
+     * Instantiates a new Region catalog.
+     *
+     * @param optimalMaxCpus the bound of the optimal table, 0 to skip building it
+     */
+    RegionCatalog(int optimalMaxCpus) {
+        this.optimalMaxCpus = optimalMaxCpus;
+    }
+
+    /**
+     * Gets the # of server types available in the region.
+     *
+     * @return the size
+     */
+    public abstract int size();
+
+    /**
+     * Gets the server type ordinal at the sorted position.
+     *
+     * @param position the sorted position
+     * @return the server type ordinal
+     */
+    public abstract int getServerType(int position);
+
+    /**
+     * Gets the # of cpus of the server type at the sorted position.
+     *
+     * @param position the sorted position
+     * @return the cpus
+     */
+    public abstract int getCpus(int position);
+
+    /**
+     * Gets the cost per hour of the server type at the sorted position.
+     *
+     * @param position the sorted position
+     * @return the cost per hour
+     */
+    public abstract double getPrice(int position);
+
+    /**
+     * Gets the # of cpus of the smallest server type of the region.
+     *
+     * @return the min cpus, 0 if the region has no server types
+     */
+    public abstract int getMinCpus();
+
+    /**
+     * Gets the lowest 'cost per hour per CPU' of the region, the one of the first sorted server type.
+     *
+     * @return the best cost per hour per cpu, infinite if the region has no server types
+     */
+    public double getBestCostPerCpu() {
+        return size() == 0 ? Double.POSITIVE_INFINITY : getPrice(0) / getCpus(0);
+    }
+
+    /**
+     * Gets the optimal table of the region, built on first use. Concurrent first uses may each build a table,
+     * all of them identical.
+     *
+     * @return the optimal table, or null if the catalog was compiled without optimal tables
+     */
+    public OptimalTable getOptimalTable() {
+        OptimalTable table = this.optimalTable;
+        if (table == null && this.optimalMaxCpus > 0 && size() < Short.MAX_VALUE) {
+            table = new OptimalTable(this, this.optimalMaxCpus);
+            this.optimalTable = table;
+        }
+        return table;
+    }
+
+}
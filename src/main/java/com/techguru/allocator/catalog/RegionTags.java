@@ -0,0 +1,80 @@
+package com.techguru.allocator.catalog;
+
+import com.techguru.allocator.exception.AllocatorException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RegionTags - Bitsets over the region ordinals of a catalog, one per tag, e.g. "eu" or "gpu".
+ * Region ordinals are kept by price updates, so the tags stay valid for every later version of the catalog and regions
+ * added by an update have no tags.
+ */
+public final class RegionTags {
+
+    private final int regionCount;
+    private final Map<String, long[]> regionsByTag;
+
+    private RegionTags(int regionCount, Map<String, long[]> regionsByTag) {
+        this.regionCount = regionCount;
+        this.regionsByTag = regionsByTag;
+    }
+
+    /**
+     * Validates the tags of every region and builds the bitset of each tag
+     *
+     * @param catalog    the catalog whose regions the tags refer to
+     * @param regionTags the tags of each region
+     * @return the region tags
+     * @throws AllocatorException if a region is not in the catalog
+     */
+    public static RegionTags of(Catalog catalog, Map<String, ? extends Collection<String>> regionTags) throws AllocatorException {
+        Map<String, long[]> regionsByTag = new HashMap<>();
+        int words = ServerTypeIndex.words(catalog.getRegionCount());
+        for (Map.Entry<String, ? extends Collection<String>> e : regionTags.entrySet()) { // for each region
+            int regionOrdinal = catalog.getRegionOrdinal(e.getKey());
+            if (regionOrdinal < 0) throw new AllocatorException("Invalid region " + e.getKey());
+            for (String tag : e.getValue()) {
+                ServerTypeIndex.set(regionsByTag.computeIfAbsent(tag, k -> new long[words]), regionOrdinal);
+            }
+        }
+        return new RegionTags(catalog.getRegionCount(), regionsByTag);
+    }
+
+    /**
+     * Gets region tags without any tag
+     *
+     * @return the region tags
+     */
+    public static RegionTags none() {
+        return new RegionTags(0, new HashMap<>());
+    }
+
+    /**
+     * Gets the # of tags.
+     *
+     * @return the tag count
+     */
+    public int getTagCount() {
+        return this.regionsByTag.size();
+    }
+
+    /**
+     * Compiles tags into the bitset of the regions having any of them
+     *
+     * @param tags the tags
+     * @return the bitset of the region ordinals
+     * @throws AllocatorException if no region has one of the tags
+     */
+    public long[] select(Collection<String> tags) throws AllocatorException {
+        long[] selected = new long[ServerTypeIndex.words(this.regionCount)];
+        for (String tag : tags) {
+            long[] regions = this.regionsByTag.get(tag);
+            if (regions == null) throw new AllocatorException("Invalid region tag " + tag);
+            for (int w = 0; w < selected.length; w++) selected[w] |= regions[w];
+        }
+        return selected;
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.techguru.allocator.catalog;
+
+import com.techguru.allocator.exception.AllocatorException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * ServerTypeIndex - Bitsets over the server type ordinals of a catalog, one per cpu size class, built once when the
+ * catalog is loaded and shared by every price update. A filter is compiled into a single bitset by or-ing the size
+ * classes in its range and setting or clearing the bits of the named server types, so the allocation loops skip a
+ * filtered out server type with a bit check, whatever the region.
+ */
+public final class ServerTypeIndex {
+
+    private final int serverTypeCount;
+    private final Map<String, Integer> serverTypeOrdinals;
+    private final int[] cpuClasses;
+    private final long[][] serverTypesByCpuClass;
+
+    /**
+     * Instantiates a new Server type index.
+     *
+     * @param serverTypeCpus     the # of cpus of each server type
+     * @param serverTypeOrdinals the ordinal of each server type name
+     */
+    ServerTypeIndex(int[] serverTypeCpus, Map<String, Integer> serverTypeOrdinals) {
+        this.serverTypeCount = serverTypeCpus.length;
+        this.serverTypeOrdinals = serverTypeOrdinals;
+        this.cpuClasses = Arrays.stream(serverTypeCpus).distinct().sorted().toArray();
+        this.serverTypesByCpuClass = new long[this.cpuClasses.length][words(this.serverTypeCount)];
+        for (int t = 0; t < this.serverTypeCount; t++) {
+            set(this.serverTypesByCpuClass[Arrays.binarySearch(this.cpuClasses, serverTypeCpus[t])], t);
+        }
+    }
+
+    /**
+     * Gets the # of longs of a bitset over a # of ordinals
+     *
+     * @param ordinals the # of ordinals
+     * @return the # of words
+     */
+    public static int words(int ordinals) {
+        return (ordinals + Long.SIZE - 1) >>> 6;
+    }
+
+    /**
+     * Sets the bit of an ordinal
+     *
+     * @param bits    the bitset
+     * @param ordinal the ordinal
+     */
+    public static void set(long[] bits, int ordinal) {
+        bits[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    /**
+     * Checks the bit of an ordinal, ordinals beyond the bitset are not set
+     *
+     * @param bits    the bitset
+     * @param ordinal the ordinal
+     * @return true if the bit is set
+     */
+    public static boolean contains(long[] bits, int ordinal) {
+        int word = ordinal >>> 6;
+        return word < bits.length && (bits[word] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * Gets the # of distinct cpu size classes of the server types.
+     *
+     * @return the cpu class count
+     */
+    public int getCpuClassCount() {
+        return this.cpuClasses.length;
+    }
+
+    /**
+     * Compiles a filter into the bitset of the server types it keeps: the server types with a # of cpus within the
+     * bounds, restricted to the named ones if any, without the excluded ones
+     *
+     * @param minCpus             the smallest # of cpus kept, null for no bound
+     * @param maxCpus             the largest # of cpus kept, null for no bound
+     * @param serverTypes         the only server types kept, null or empty to keep every server type
+     * @param excludedServerTypes the server types never kept, may be null
+     * @return the bitset of the kept server type ordinals
+     * @throws AllocatorException if a server type is not in the catalog
+     */
+    public long[] select(Integer minCpus, Integer maxCpus, Collection<String> serverTypes, Collection<String> excludedServerTypes) throws AllocatorException {
+        long[] selected = new long[words(this.serverTypeCount)];
+        int from = minCpus == null ? 0 : lowerBound(minCpus);
+        int to = maxCpus == null ? this.cpuClasses.length : lowerBound(maxCpus == Integer.MAX_VALUE ? maxCpus : maxCpus + 1);
+        for (int c = from; c < to; c++) { // for each size class within the bounds
+            long[] serverTypesOfClass = this.serverTypesByCpuClass[c];
+            for (int w = 0; w < selected.length; w++) selected[w] |= serverTypesOfClass[w];
+        }
+        if (serverTypes != null && !serverTypes.isEmpty()) {
+            long[] named = new long[selected.length];
+            for (String serverType : serverTypes) set(named, ordinal(serverType));
+            for (int w = 0; w < selected.length; w++) selected[w] &= named[w];
+        }
+        if (excludedServerTypes != null) {
+            for (String serverType : excludedServerTypes) {
+                int ordinal = ordinal(serverType);
+                selected[ordinal >>> 6] &= ~(1L << ordinal);
+            }
+        }
+        return selected;
+    }
+
+    private int ordinal(String serverType) throws AllocatorException {
+        Integer ordinal = this.serverTypeOrdinals.get(serverType);
+        if (ordinal == null) throw new AllocatorException("Invalid server type " + serverType);
+        return ordinal;
+    }
+
+    /**
+     * Index of the first size class not smaller than the # of cpus
+     */
+    private int lowerBound(int cpus) {
+        int i = Arrays.binarySearch(this.cpuClasses, cpus);
+        return i >= 0 ? i : -i - 1;
+    }
+
+}
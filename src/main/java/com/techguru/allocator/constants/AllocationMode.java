@@ -0,0 +1,35 @@
+package com.techguru.allocator.constants;
+
+/**
+ * Allocation mode selected by the user input parameters of a request
+ */
+public enum AllocationMode {
+
+    /**
+     * Allocate by hours and cpus
+     */
+    BY_CPUS,
+
+    /**
+     * Allocate by hours and price
+     */
+    BY_PRICE,
+
+    /**
+     * Allocate by hours, cpus and price
+     */
+    BY_CPUS_AND_PRICE;
+
+    /**
+     * Gets the mode of the non null parameters.
+     *
+     * @param cpus  the required # of cpus
+     * @param price the maximum price allowed for the allocation
+     * @return the allocation mode
+     */
+    public static AllocationMode of(Integer cpus, Double price) {
+        if (cpus != null && price == null) return BY_CPUS;
+        else if (cpus == null) return BY_PRICE;
+        else return BY_CPUS_AND_PRICE;
+    }
+}
@@ -0,0 +1,19 @@
+package com.techguru.allocator.constants;
+
+/**
+ * Strategy used to pick the server types allocated in a region
+ */
+public enum AllocationStrategy {
+
+    /**
+     * Walk the server types sorted by 'cost per hour per CPU' and take as many of each as fit
+     */
+    GREEDY,
+
+    /**
+     * Minimum cost mix looked up from a table precomputed per region at load time. Price bounded requests search
+     * the frontier of non-dominated (cpus, cost per hour) points of that table.
+     */
+    OPTIMAL
+
+}
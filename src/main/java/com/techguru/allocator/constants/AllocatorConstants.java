@@ -13,5 +13,24 @@ public final class AllocatorConstants {
     public static final String LOG_ALLOCATE_BYCPUS = "Allocating {} cpus for {} hours";
     public static final String LOG_ALLOCATE_BYPRICE = "Allocating cpus for {} hours at price ${}";
     public static final String LOG_ALLOCATE_BYCPUS_BYPRICE = "Allocating {} cpus for {} hours at price ${}";
+    public static final String LOG_ALLOCATE_CHEAPEST = "Allocating the {} cheapest regions";
+    public static final String LOG_ALLOCATE_CURVE = "Allocating {} to {} cpus for {} hours";
+    public static final String LOG_ALLOCATE_ACROSS_REGIONS = "Allocating across regions with {} region caps";
+    public static final String LOG_ALLOCATE_WINDOW = "Allocating from hour {} for {} hours at hourly prices";
+    public static final String LOG_ALLOCATE_FILTERED = "Allocating for {} hours within {} server types of {} regions";
+    public static final String LOG_ALLOCATE_SHARDS = "Allocating across {} shards";
+    public static final String LOG_ALLOCATE_BATCH = "Allocating batch of {} requests";
+    public static final String LOG_RESERVE = "Reserved {} cpus in region {}, reservation {}";
+    public static final String LOG_RELEASE = "Released reservation {}";
+    public static final String LOG_UPDATE_PRICES = "Updated prices of {} regions, catalog version {}";
+    public static final String LOG_UPDATE_HOURLY_PRICES = "Updated hourly prices of {} regions, period {} hours";
+    public static final String LOG_UPDATE_REGION_TAGS = "Updated region tags of {} regions, {} tags";
+    public static final String LOG_COMPILE_CATALOG = "Compiled catalog file {}";
+    public static final String LOG_SERVER_STARTED = "Allocator server listening on port {}";
+    public static final String LOG_SERVER_STOPPED = "Allocator server on port {} stopped";
+    public static final String LOG_BULK = "{} requests, {} errors in {} s: {} requests/s";
+    public static final String LOG_SHARD_SERVER_STARTED = "Shard server listening on port {}";
+    public static final String LOG_SHARD_SERVER_STOPPED = "Shard server on port {} stopped";
+    public static final String LOG_LOAD_TEST = "{} requests, {} errors in {} s: {} requests/s, p50 {} us, p99 {} us";
 
 }
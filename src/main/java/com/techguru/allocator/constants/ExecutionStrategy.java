@@ -0,0 +1,23 @@
+package com.techguru.allocator.constants;
+
+/**
+ * Strategy used to evaluate the regions of a request
+ */
+public enum ExecutionStrategy {
+
+    /**
+     * Evaluate regions one after another on the calling thread
+     */
+    SEQUENTIAL,
+
+    /**
+     * Split regions recursively across the common fork-join pool
+     */
+    FORK_JOIN,
+
+    /**
+     * Split regions in chunks submitted to the executor supplied in the config
+     */
+    EXECUTOR
+
+}
@@ -0,0 +1,27 @@
+package com.techguru.allocator.exception;
+
+/**
+ * Exception completing an asynchronous request which was not accepted because the allocator is saturated
+ */
+public class AllocatorRejectedException extends AllocatorException {
+
+    /**
+     * Instantiates a new Allocator rejected exception.
+     *
+     * @param message the message
+     */
+    public AllocatorRejectedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Instantiates a new Allocator rejected exception.
+     *
+     * @param message the message
+     * @param e       the Throwable
+     */
+    public AllocatorRejectedException(String message, Throwable e) {
+        super(message, e);
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.techguru.allocator.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * AllocateEvent - Flight recorder event of the allocation of every region for one request
+ */
+@Name("com.techguru.allocator.Allocate")
+@Label("Allocate")
+@Category("Resource Allocator")
+@Description("Allocation of servers in every region for one request")
+public class AllocateEvent extends Event {
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Regions Evaluated")
+    public int regionsEvaluated;
+
+    @Label("Server Types Scanned")
+    public long serverTypesScanned;
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+
+    @Label("Catalog Version")
+    public long catalogVersion;
+
+}
@@ -0,0 +1,48 @@
+package com.techguru.allocator.metrics;
+
+import com.techguru.allocator.constants.AllocationMode;
+
+/**
+ * AllocatorMetrics - Instrumentation callbacks of an allocator.
+ * All methods default to doing nothing and the allocator skips timing entirely when {@link #NOOP} is configured.
+ */
+public interface AllocatorMetrics {
+
+    /**
+     * Metrics which record nothing, the default
+     */
+    AllocatorMetrics NOOP = new AllocatorMetrics() {
+    };
+
+    /**
+     * Called after a catalog is loaded and compiled
+     *
+     * @param durationNanos  the parse and compile duration
+     * @param regions        the # of regions loaded
+     * @param serverTypes    the # of server types loaded
+     * @param catalogVersion the version of the loaded catalog
+     */
+    default void onLoad(long durationNanos, int regions, int serverTypes, long catalogVersion) {
+    }
+
+    /**
+     * Called after the regions of a request are allocated
+     *
+     * @param mode                the allocation mode
+     * @param durationNanos       the allocation duration
+     * @param regionsEvaluated    the # of regions evaluated, 0 on a cache hit
+     * @param serverTypesScanned  the # of (region, server type) entries scanned, 0 on a cache hit
+     * @param cacheHit            whether the allocations came from the result cache
+     */
+    default void onAllocate(AllocationMode mode, long durationNanos, int regionsEvaluated, long serverTypesScanned, boolean cacheHit) {
+    }
+
+    /**
+     * Called after a price update is published
+     *
+     * @param catalogVersion the version of the published catalog
+     * @param durationNanos  the update duration
+     */
+    default void onCatalogUpdate(long catalogVersion, long durationNanos) {
+    }
+}
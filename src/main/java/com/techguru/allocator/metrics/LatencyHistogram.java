@@ -0,0 +1,70 @@
+package com.techguru.allocator.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram - Lock free histogram of durations in nanoseconds. Bucket b counts the durations in [2^b, 2^(b+1)).
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a duration
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        this.buckets.incrementAndGet(value == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(value));
+        this.count.increment();
+        this.sum.add(value);
+    }
+
+    /**
+     * Gets the # of recorded durations.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Gets the mean duration.
+     *
+     * @return the mean in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMean() {
+        long n = this.count.sum();
+        return n == 0 ? 0.0 : (double) this.sum.sum() / n;
+    }
+
+    /**
+     * Gets an upper bound of the duration at the percentile, precise to a power of two.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the duration in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) {
+            snapshot[b] = this.buckets.get(b);
+            total += snapshot[b];
+        }
+        if (total == 0) return 0L;
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += snapshot[b];
+            if (seen >= Math.max(rank, 1)) return b == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (b + 1)) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+}
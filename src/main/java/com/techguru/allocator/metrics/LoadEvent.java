@@ -0,0 +1,24 @@
+package com.techguru.allocator.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * LoadEvent - Flight recorder event of the parsing and compilation of a catalog
+ */
+@Name("com.techguru.allocator.Load")
+@Label("Load")
+@Category("Resource Allocator")
+@Description("Parsing and compilation of the server types and region cost per hour inputs")
+public class LoadEvent extends Event {
+
+    @Label("Regions")
+    public int regions;
+
+    @Label("Server Types")
+    public int serverTypes;
+
+}
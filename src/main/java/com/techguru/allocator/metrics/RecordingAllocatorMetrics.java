@@ -0,0 +1,115 @@
+package com.techguru.allocator.metrics;
+
+import com.techguru.allocator.constants.AllocationMode;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RecordingAllocatorMetrics - Thread safe in-memory metrics: a latency histogram per allocation mode, regions and
+ * server types scanned, cache hits and misses, the catalog version and the last load duration
+ */
+public class RecordingAllocatorMetrics implements AllocatorMetrics {
+
+    private final Map<AllocationMode, LatencyHistogram> latencies = new EnumMap<>(AllocationMode.class);
+    private final LongAdder regionsEvaluated = new LongAdder();
+    private final LongAdder serverTypesScanned = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private volatile long catalogVersion;
+    private volatile long loadNanos;
+
+    /**
+     * Instantiates a new Recording allocator metrics.
+     */
+    public RecordingAllocatorMetrics() {
+        for (AllocationMode mode : AllocationMode.values()) {
+            this.latencies.put(mode, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void onLoad(long durationNanos, int regions, int serverTypes, long catalogVersion) {
+        this.loadNanos = durationNanos;
+        this.catalogVersion = catalogVersion;
+    }
+
+    @Override
+    public void onAllocate(AllocationMode mode, long durationNanos, int regionsEvaluated, long serverTypesScanned, boolean cacheHit) {
+        this.latencies.get(mode).record(durationNanos);
+        this.regionsEvaluated.add(regionsEvaluated);
+        this.serverTypesScanned.add(serverTypesScanned);
+        if (cacheHit) this.cacheHits.increment();
+        else this.cacheMisses.increment();
+    }
+
+    @Override
+    public void onCatalogUpdate(long catalogVersion, long durationNanos) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Gets the latency histogram of an allocation mode.
+     *
+     * @param mode the allocation mode
+     * @return the latency histogram
+     */
+    public LatencyHistogram getLatency(AllocationMode mode) {
+        return this.latencies.get(mode);
+    }
+
+    /**
+     * Gets the total # of regions evaluated.
+     *
+     * @return the regions evaluated
+     */
+    public long getRegionsEvaluated() {
+        return this.regionsEvaluated.sum();
+    }
+
+    /**
+     * Gets the total # of (region, server type) entries scanned.
+     *
+     * @return the server types scanned
+     */
+    public long getServerTypesScanned() {
+        return this.serverTypesScanned.sum();
+    }
+
+    /**
+     * Gets the # of requests served from the result cache.
+     *
+     * @return the cache hits
+     */
+    public long getCacheHits() {
+        return this.cacheHits.sum();
+    }
+
+    /**
+     * Gets the # of requests allocated without the result cache.
+     *
+     * @return the cache misses
+     */
+    public long getCacheMisses() {
+        return this.cacheMisses.sum();
+    }
+
+    /**
+     * Gets the version of the last published catalog.
+     *
+     * @return the catalog version
+     */
+    public long getCatalogVersion() {
+        return this.catalogVersion;
+    }
+
+    /**
+     * Gets the duration of the last load.
+     *
+     * @return the load duration in nanoseconds
+     */
+    public long getLoadNanos() {
+        return this.loadNanos;
+    }
+}
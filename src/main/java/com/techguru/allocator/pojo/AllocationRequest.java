@@ -0,0 +1,19 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * AllocationRequest - POJO class for the user input parameters of a single allocation
+ */
+@Getter
+@Builder
+public class AllocationRequest {
+
+    private Integer hours;
+
+    private Integer cpus;
+
+    private Double price;
+
+}
@@ -0,0 +1,70 @@
+package com.techguru.allocator.pojo;
+
+import com.techguru.allocator.constants.AllocationStrategy;
+import com.techguru.allocator.constants.ExecutionStrategy;
+import com.techguru.allocator.metrics.AllocatorMetrics;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.Executor;
+
+/**
+ * AllocatorConfig - POJO class for the tuning options of an allocator
+ */
+@Getter
+@Builder
+public class AllocatorConfig {
+
+    /**
+     * Strategy used to allocate servers in each region
+     */
+    @Builder.Default
+    private AllocationStrategy allocationStrategy = AllocationStrategy.GREEDY;
+
+    /**
+     * Largest # of cpus covered by the precomputed table of the optimal strategy.
+     * Larger requests are served greedily down to this bound and exactly below it.
+     */
+    @Builder.Default
+    private int optimalMaxCpus = 1024;
+
+    /**
+     * Strategy used to evaluate the regions of a request
+     */
+    @Builder.Default
+    private ExecutionStrategy executionStrategy = ExecutionStrategy.SEQUENTIAL;
+
+    /**
+     * Executor used by the executor strategy. The fork-join strategy is used if no executor is supplied.
+     */
+    private Executor executor;
+
+    /**
+     * Catalogs with fewer regions are evaluated sequentially whatever the execution strategy
+     */
+    @Builder.Default
+    private int parallelThreshold = 64;
+
+    /**
+     * Maximum # of requests whose allocations are kept in the LRU result cache, 0 to disable the cache
+     */
+    private int cacheSize;
+
+    /**
+     * Executor running the asynchronous calls, the common fork-join pool if none is supplied
+     */
+    private Executor asyncExecutor;
+
+    /**
+     * Maximum # of asynchronous calls submitted and not completed yet. Further calls are rejected.
+     */
+    @Builder.Default
+    private int maxInFlight = 256;
+
+    /**
+     * Instrumentation callbacks, nothing is recorded by default
+     */
+    @Builder.Default
+    private AllocatorMetrics metrics = AllocatorMetrics.NOOP;
+
+}
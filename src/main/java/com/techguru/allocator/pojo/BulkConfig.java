@@ -0,0 +1,32 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * BulkConfig - POJO class for the tuning options of the bulk allocation pipeline
+ */
+@Getter
+@Builder
+public class BulkConfig {
+
+    /**
+     * # of worker threads allocating chunks of requests
+     */
+    @Builder.Default
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * # of request lines allocated together in one pass over the regions
+     */
+    @Builder.Default
+    private int chunkSize = 256;
+
+    /**
+     * Maximum # of chunks read and not written yet. Reading waits for the oldest chunk to be written once reached,
+     * which bounds the memory used whatever the size of the input.
+     */
+    @Builder.Default
+    private int maxChunksInFlight = Runtime.getRuntime().availableProcessors() * 4;
+
+}
@@ -0,0 +1,21 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * BulkReport - POJO class for the counters of a bulk allocation run
+ */
+@Getter
+@Builder
+public class BulkReport {
+
+    private long requests;
+
+    private long errors;
+
+    private double seconds;
+
+    private double throughput;
+
+}
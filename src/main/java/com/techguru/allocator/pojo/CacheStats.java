@@ -0,0 +1,19 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * CacheStats - POJO class for the counters of the allocator result cache
+ */
+@Getter
+@Builder
+public class CacheStats {
+
+    private long hits;
+
+    private long misses;
+
+    private int size;
+
+}
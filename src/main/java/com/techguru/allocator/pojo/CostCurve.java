@@ -0,0 +1,22 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * CostCurve - POJO class for the allocations of a region over a range of # of cpus.
+ * Element i of the arrays is the allocation of fromCpus + i cpus.
+ */
+@Getter
+@Builder
+public class CostCurve {
+
+    private String region;
+
+    private int fromCpus;
+
+    private int[] totalCpus;
+
+    private double[] totalCost;
+
+}
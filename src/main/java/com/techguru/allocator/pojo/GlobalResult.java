@@ -0,0 +1,21 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * GlobalResult - POJO class for servers allocated across regions, with the servers of each region used
+ */
+@Getter
+@Builder
+public class GlobalResult {
+
+    private int totalCpus;
+
+    private String totalCost;
+
+    private List<Result> regions;
+
+}
@@ -0,0 +1,25 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * LoadTestReport - POJO class for the throughput and latency measured by a load test
+ */
+@Getter
+@Builder
+public class LoadTestReport {
+
+    private long requests;
+
+    private long errors;
+
+    private double seconds;
+
+    private double throughput;
+
+    private long p50Micros;
+
+    private long p99Micros;
+
+}
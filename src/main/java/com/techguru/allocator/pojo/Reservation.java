@@ -0,0 +1,26 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reservation - POJO class for servers reserved in a region against its remaining capacity
+ */
+@Getter
+@Builder
+public class Reservation {
+
+    private long id;
+
+    private String region;
+
+    private int totalCpus;
+
+    private String totalCost;
+
+    private List<Map<String, Integer>> servers;
+
+}
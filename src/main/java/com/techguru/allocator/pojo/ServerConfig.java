@@ -0,0 +1,37 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * ServerConfig - POJO class for the tuning options of the allocator http server
+ */
+@Getter
+@Builder
+public class ServerConfig {
+
+    /**
+     * Port the server listens on, 0 for any free port
+     */
+    @Builder.Default
+    private int port = 8080;
+
+    /**
+     * # of worker threads handling http exchanges
+     */
+    @Builder.Default
+    private int workers = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * Time requests wait for other requests to be allocated in the same pass over the regions, 0 to disable batching
+     */
+    @Builder.Default
+    private long batchWindowMicros = 200;
+
+    /**
+     * Maximum # of requests allocated in one pass, a full batch is allocated without waiting for the window to end
+     */
+    @Builder.Default
+    private int maxBatchSize = 64;
+
+}
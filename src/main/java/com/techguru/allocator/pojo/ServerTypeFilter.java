@@ -0,0 +1,41 @@
+package com.techguru.allocator.pojo;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * ServerTypeFilter - POJO class for the server types and regions an allocation is limited to.
+ * Every constraint left null keeps everything.
+ */
+@Getter
+@Builder
+public class ServerTypeFilter {
+
+    /**
+     * Smallest # of cpus of the server types allocated
+     */
+    private Integer minCpus;
+
+    /**
+     * Largest # of cpus of the server types allocated
+     */
+    private Integer maxCpus;
+
+    /**
+     * Only server types allocated
+     */
+    private Set<String> serverTypes;
+
+    /**
+     * Server types never allocated
+     */
+    private Set<String> excludedServerTypes;
+
+    /**
+     * Regions allocated, those having any of the tags
+     */
+    private Set<String> regionTags;
+
+}
@@ -0,0 +1,189 @@
+package com.techguru.allocator.server;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.AllocationRequest;
+import com.techguru.allocator.pojo.ServerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.techguru.allocator.constants.AllocatorConstants.LOG_SERVER_STARTED;
+import static com.techguru.allocator.constants.AllocatorConstants.LOG_SERVER_STOPPED;
+
+/**
+ * AllocatorServer - Serves allocation queries of one allocator over http with the JDK http server.
+ * <pre>
+ * GET /costs?hours=24&amp;cpus=115&amp;price=29.0       same output as getCosts, requests within the batch window share one pass
+ * GET /cheapest?hours=24&amp;cpus=115&amp;k=3             same output as getCheapestRegions
+ * </pre>
+ * Invalid requests get a 400 status with a json body {"error": message}.
+ * Responses are written as separate header and body packets, which Nagle's algorithm delays by the peer's delayed
+ * ack, so the JVM should run with -Dsun.net.httpserver.nodelay=true, as the serve mode of the main class does.
+ */
+public class AllocatorServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AllocatorServer.class);
+
+    private final Allocator allocator;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final RequestBatcher batcher;
+
+    /**
+     * Instantiates a new Allocator server. The server is bound but does not handle requests until started.
+     *
+     * @param allocator the allocator, with its catalog already loaded
+     * @param config    the server config
+     * @throws AllocatorException if the port cannot be bound
+     */
+    public AllocatorServer(Allocator allocator, ServerConfig config) throws AllocatorException {
+        this.allocator = allocator;
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(config.getPort()), 0);
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while starting server", e);
+        }
+        this.workers = Executors.newFixedThreadPool(Math.max(config.getWorkers(), 1));
+        this.batcher = new RequestBatcher(allocator, config.getBatchWindowMicros(), config.getMaxBatchSize(), this.workers);
+        this.server.setExecutor(this.workers);
+        this.server.createContext("/costs", exchange -> handle(exchange, false));
+        this.server.createContext("/cheapest", exchange -> handle(exchange, true));
+    }
+
+    /**
+     * Starts handling requests
+     */
+    public void start() {
+        this.server.start();
+        logger.info(LOG_SERVER_STARTED, getPort());
+    }
+
+    /**
+     * Stops the server, waiting at most the delay for the exchanges in progress
+     *
+     * @param delaySeconds the maximum time to wait for exchanges in progress
+     */
+    public void stop(int delaySeconds) {
+        this.server.stop(delaySeconds);
+        this.batcher.shutdown();
+        this.workers.shutdown();
+        logger.info(LOG_SERVER_STOPPED, getPort());
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Parses a request and answers it once its costs are allocated. /costs requests are not waited for, so a worker
+     * is free for the next exchange while the request waits for its batch.
+     */
+    private void handle(HttpExchange exchange, boolean cheapest) {
+        CompletableFuture<String> body;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                complete(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            Integer hours = integer(query, "hours");
+            Integer cpus = integer(query, "cpus");
+            Double price = decimal(query, "price");
+            if (cheapest) {
+                Integer k = integer(query, "k");
+                body = CompletableFuture.completedFuture(this.allocator.getCheapestRegions(hours, cpus, price, k == null ? 1 : k));
+            } else {
+                body = this.batcher.submit(AllocationRequest.builder().hours(hours).cpus(cpus).price(price).build());
+            }
+        } catch (AllocatorException e) {
+            complete(exchange, 400, error(e.getMessage()));
+            return;
+        } catch (RuntimeException e) {
+            complete(exchange, 500, error(e.getMessage()));
+            return;
+        }
+        body.whenCompleteAsync((costs, failure) -> {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            if (cause == null) complete(exchange, 200, costs);
+            else complete(exchange, cause instanceof AllocatorException ? 400 : 500, error(cause.getMessage()));
+        }, this.workers);
+    }
+
+    /**
+     * Sends the response and closes the exchange
+     */
+    private static void complete(HttpExchange exchange, int status, String body) {
+        try {
+            send(exchange, status, body);
+        } catch (IOException e) {
+            //The client is gone, there is nobody left to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) return parameters;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static Integer integer(Map<String, String> query, String name) throws AllocatorException {
+        String value = query.get(name);
+        try {
+            return value == null || value.isEmpty() ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new AllocatorException("Invalid " + name + " " + value);
+        }
+    }
+
+    private static Double decimal(Map<String, String> query, String name) throws AllocatorException {
+        String value = query.get(name);
+        try {
+            return value == null || value.isEmpty() ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new AllocatorException("Invalid " + name + " " + value);
+        }
+    }
+
+    private static String error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error.toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
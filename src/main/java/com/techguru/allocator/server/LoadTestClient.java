@@ -0,0 +1,96 @@
+package com.techguru.allocator.server;
+
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.LoadTestReport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadTestClient - Closed loop load generator for an {@link AllocatorServer}. Each client sends its requests one after
+ * the other, cycling through the queries, and the latency of every request is kept to report exact percentiles.
+ */
+public class LoadTestClient {
+
+    private final URI baseUri;
+    private final HttpClient client;
+
+    /**
+     * Instantiates a new Load test client.
+     *
+     * @param baseUri the uri of the server, e.g. http://localhost:8080
+     */
+    public LoadTestClient(URI baseUri) {
+        this.baseUri = baseUri;
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    /**
+     * Runs the load test
+     *
+     * @param queries           the query strings of the /costs requests, e.g. hours=24&amp;cpus=115
+     * @param clients           the # of concurrent clients
+     * @param requestsPerClient the # of requests sent by each client
+     * @return the report
+     * @throws AllocatorException if the load test is interrupted or a client fails
+     */
+    public LoadTestReport run(List<String> queries, int clients, int requestsPerClient) throws AllocatorException {
+        List<HttpRequest> requests = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            requests.add(HttpRequest.newBuilder(this.baseUri.resolve("/costs?" + query)).GET().build());
+        }
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicLong errors = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        HttpRequest request = requests.get((client + i) % requests.size());
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = this.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                            if (response.statusCode() != 200) errors.incrementAndGet();
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[client * requestsPerClient + i] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AllocatorException("Load test interrupted", e);
+        } catch (ExecutionException e) {
+            throw new AllocatorException("Exception in load test client", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        return LoadTestReport.builder().requests(latencies.length).errors(errors.get()).seconds(seconds)
+                .throughput(latencies.length / seconds).p50Micros(percentile(latencies, 50) / 1000).p99Micros(percentile(latencies, 99) / 1000).build();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0L;
+        int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+}
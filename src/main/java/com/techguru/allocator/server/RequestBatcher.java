@@ -0,0 +1,138 @@
+package com.techguru.allocator.server;
+
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.AllocationRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RequestBatcher - Groups the requests arriving within a window and allocates each group in a single pass over the
+ * regions with {@link Allocator#getCostsPerRequest(List)}. The window starts with the first request of a group, and a
+ * group reaching the maximum size is allocated right away on the thread which filled it. The timer thread only ends
+ * the windows, a group whose window ends is allocated on the workers so groups are allocated in parallel.
+ */
+class RequestBatcher {
+
+    private final Allocator allocator;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final Executor workers;
+    private final ScheduledExecutorService scheduler;
+    private List<Pending> pending = new ArrayList<>();
+
+    RequestBatcher(Allocator allocator, long windowMicros, int maxBatchSize, Executor workers) {
+        this.allocator = allocator;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.workers = workers;
+        this.scheduler = windowMicros > 0 ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "allocator-batcher");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Queues a request for the current group
+     *
+     * @return the future costs of the request, completed when its group is allocated
+     */
+    CompletableFuture<String> submit(AllocationRequest request) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        if (this.scheduler == null) {
+            allocate(Collections.singletonList(new Pending(request, future)));
+            return future;
+        }
+        List<Pending> full = null;
+        synchronized (this) {
+            this.pending.add(new Pending(request, future));
+            if (this.pending.size() >= this.maxBatchSize) {
+                full = this.pending;
+                this.pending = new ArrayList<>();
+            } else if (this.pending.size() == 1) {
+                List<Pending> group = this.pending;
+                this.scheduler.schedule(() -> windowEnded(group), this.windowMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+        if (full != null) allocate(full);
+        return future;
+    }
+
+    /**
+     * Hands the group to a worker when its window ends, or allocates it on the timer thread if the workers are shut down
+     */
+    private void windowEnded(List<Pending> group) {
+        try {
+            this.workers.execute(() -> flush(group));
+        } catch (RejectedExecutionException e) {
+            flush(group);
+        }
+    }
+
+    /**
+     * Allocates the group when its window ends, unless it was already allocated full
+     */
+    private void flush(List<Pending> group) {
+        synchronized (this) {
+            if (this.pending != group) return;
+            this.pending = new ArrayList<>();
+        }
+        allocate(group);
+    }
+
+    /**
+     * Allocates a group in one pass. If a request of the group is invalid, each request is allocated on its own so
+     * only the invalid ones fail.
+     */
+    private void allocate(List<Pending> group) {
+        List<AllocationRequest> requests = new ArrayList<>(group.size());
+        for (Pending p : group) requests.add(p.request);
+        try {
+            List<String> results = this.allocator.getCostsPerRequest(requests);
+            for (int i = 0; i < group.size(); i++) group.get(i).future.complete(results.get(i));
+        } catch (AllocatorException e) {
+            for (Pending p : group) {
+                try {
+                    p.future.complete(this.allocator.getCosts(p.request.getHours(), p.request.getCpus(), p.request.getPrice()));
+                } catch (AllocatorException | RuntimeException e2) {
+                    p.future.completeExceptionally(e2);
+                }
+            }
+        } catch (RuntimeException e) {
+            for (Pending p : group) p.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stops the window timer and allocates the requests still waiting
+     */
+    void shutdown() {
+        if (this.scheduler == null) return;
+        this.scheduler.shutdownNow();
+        List<Pending> group;
+        synchronized (this) {
+            group = this.pending;
+            this.pending = new ArrayList<>();
+        }
+        if (!group.isEmpty()) allocate(group);
+    }
+
+    private static final class Pending {
+        private final AllocationRequest request;
+        private final CompletableFuture<String> future;
+
+        private Pending(AllocationRequest request, CompletableFuture<String> future) {
+            this.request = request;
+            this.future = future;
+        }
+    }
+}
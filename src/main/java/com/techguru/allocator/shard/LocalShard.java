@@ -0,0 +1,27 @@
+package com.techguru.allocator.shard;
+
+import com.techguru.allocator.Allocator;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * LocalShard - Shard answered by an allocator of the same process, on its async executor
+ */
+public class LocalShard implements Shard {
+
+    private final Allocator allocator;
+
+    /**
+     * Instantiates a new Local shard.
+     *
+     * @param allocator the allocator loaded with the regions of the shard
+     */
+    public LocalShard(Allocator allocator) {
+        this.allocator = allocator;
+    }
+
+    @Override
+    public CompletableFuture<String> getCosts(Integer hours, Integer cpus, Double price) {
+        return this.allocator.getCostsAsync(hours, cpus, price);
+    }
+}
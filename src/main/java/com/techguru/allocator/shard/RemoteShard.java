@@ -0,0 +1,144 @@
+package com.techguru.allocator.shard;
+
+import com.techguru.allocator.exception.AllocatorException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * RemoteShard - Shard answered by a {@link ShardServer} of another process. Requests run on a pool of connections:
+ * a request takes an idle connection or opens one, and gives it back once answered. A connection which fails or
+ * reaches the read timeout is closed, so a late response is never read by the next request.
+ */
+public class RemoteShard implements Shard {
+
+    private final InetSocketAddress address;
+    private final int timeoutMillis;
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private final ExecutorService requests;
+
+    /**
+     * Instantiates a new Remote shard. Connections are opened on first use.
+     *
+     * @param host          the host of the shard server
+     * @param port          the port of the shard server
+     * @param timeoutMillis the connect and read timeout of a request
+     */
+    public RemoteShard(String host, int port, int timeoutMillis) {
+        this.address = new InetSocketAddress(host, port);
+        this.timeoutMillis = timeoutMillis;
+        this.requests = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "allocator-remote-shard");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> getCosts(Integer hours, Integer cpus, Double price) {
+        String request = ShardProtocol.request(hours, cpus, price);
+        try {
+            return CompletableFuture.supplyAsync(() -> query(request), this.requests);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new AllocatorException("Shard " + this.address + " is closed"));
+        }
+    }
+
+    /**
+     * Sends a request on an idle or new connection, run on a request thread. An idle connection may have been closed by
+     * the shard server since its last request, e.g. on a restart, so a failure on it other than the read timeout is
+     * retried once on a new connection
+     */
+    private String query(String request) {
+        Connection connection = this.idle.poll();
+        try {
+            if (connection == null) {
+                connection = new Connection(this.address, this.timeoutMillis);
+                return send(connection, request);
+            }
+            try {
+                return send(connection, request);
+            } catch (SocketTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                connection.close();
+                connection = new Connection(this.address, this.timeoutMillis);
+                return send(connection, request);
+            }
+        } catch (IOException e) {
+            if (connection != null) connection.close();
+            throw new CompletionException(new AllocatorException("Exception while querying shard " + this.address, e));
+        } catch (AllocatorException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Sends a request and gives the connection back to the pool once answered
+     */
+    private String send(Connection connection, String request) throws IOException, AllocatorException {
+        String response = connection.send(request);
+        if (response == null) throw new IOException("Connection closed by the shard server");
+        this.idle.add(connection);
+        return ShardProtocol.parseResponse(response);
+    }
+
+    /**
+     * Closes the idle connections and stops the request threads
+     */
+    @Override
+    public void close() {
+        this.requests.shutdownNow();
+        Connection connection;
+        while ((connection = this.idle.poll()) != null) connection.close();
+    }
+
+    private static final class Connection {
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final Writer writer;
+
+        private Connection(InetSocketAddress address, int timeoutMillis) throws IOException {
+            this.socket = new Socket();
+            try {
+                this.socket.connect(address, timeoutMillis);
+                this.socket.setSoTimeout(timeoutMillis);
+                this.socket.setTcpNoDelay(true);
+                this.reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+                this.writer = new BufferedWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private String send(String request) throws IOException {
+            this.writer.write(request);
+            this.writer.write('\n');
+            this.writer.flush();
+            return this.reader.readLine();
+        }
+
+        private void close() {
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+                //Already closed
+            }
+        }
+    }
+}
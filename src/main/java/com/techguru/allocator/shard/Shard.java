@@ -0,0 +1,29 @@
+package com.techguru.allocator.shard;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shard - Contiguous range of the regions of a catalog, answering allocation queries for its regions only.
+ * The output of a shard is the json array of {@link com.techguru.allocator.Allocator#getCosts(Integer, Integer, Double)}
+ * restricted to its regions, in catalog order.
+ */
+public interface Shard extends AutoCloseable {
+
+    /**
+     * Allocates server resources in the regions of the shard
+     *
+     * @param hours the required # of hours of resources
+     * @param cpus  the required # of cpus
+     * @param price the maximum price allowed for the allocation
+     * @return the future costs, cpus if allocated for each region of the shard, completed with an
+     * {@link com.techguru.allocator.exception.AllocatorException} if the request is not valid
+     */
+    CompletableFuture<String> getCosts(Integer hours, Integer cpus, Double price);
+
+    /**
+     * Releases the resources held by the shard, nothing by default
+     */
+    @Override
+    default void close() {
+    }
+}
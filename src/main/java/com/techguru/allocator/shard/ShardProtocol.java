@@ -0,0 +1,65 @@
+package com.techguru.allocator.shard;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.AllocationRequest;
+
+/**
+ * ShardProtocol - Line protocol between a {@link RemoteShard} and a {@link ShardServer}, one UTF-8 line per message.
+ * <pre>
+ * request     hours cpus price        e.g. "24 115 null", null for a missing parameter
+ * response    [...]                   the json output of the shard
+ *             {"error": message}      if the request is not valid
+ * </pre>
+ */
+final class ShardProtocol {
+
+    private static final String NULL = "null";
+
+    private ShardProtocol() {
+    }
+
+    static String request(Integer hours, Integer cpus, Double price) {
+        return (hours == null ? NULL : hours.toString()) + ' ' + (cpus == null ? NULL : cpus.toString()) + ' ' + (price == null ? NULL : price.toString());
+    }
+
+    static AllocationRequest parseRequest(String line) throws AllocatorException {
+        String[] tokens = line.trim().split(" ");
+        if (tokens.length != 3) throw new AllocatorException("Not a valid request");
+        try {
+            return AllocationRequest.builder()
+                    .hours(NULL.equals(tokens[0]) ? null : Integer.valueOf(tokens[0]))
+                    .cpus(NULL.equals(tokens[1]) ? null : Integer.valueOf(tokens[1]))
+                    .price(NULL.equals(tokens[2]) ? null : Double.valueOf(tokens[2]))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new AllocatorException("Not a valid request");
+        }
+    }
+
+    static String error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error.toString();
+    }
+
+    /**
+     * Gets the output of a response line
+     *
+     * @throws AllocatorException with the message of an error response
+     */
+    static String parseResponse(String line) throws AllocatorException {
+        if (!line.startsWith("{")) return line;
+        JsonElement error;
+        try {
+            error = JsonParser.parseString(line).getAsJsonObject().get("error");
+        } catch (JsonParseException e) {
+            error = null;
+        }
+        if (error == null || !error.isJsonPrimitive()) throw new AllocatorException("Not a valid shard response");
+        throw new AllocatorException(error.getAsString());
+    }
+}
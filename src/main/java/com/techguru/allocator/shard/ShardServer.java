@@ -0,0 +1,137 @@
+package com.techguru.allocator.shard;
+
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.AllocationRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.techguru.allocator.constants.AllocatorConstants.LOG_SHARD_SERVER_STARTED;
+import static com.techguru.allocator.constants.AllocatorConstants.LOG_SHARD_SERVER_STOPPED;
+
+/**
+ * ShardServer - Serves the allocator of one shard to {@link RemoteShard} clients over the {@link ShardProtocol}.
+ * Each connection is handled on its own thread and answers its requests in order, so a client keeps a connection
+ * per request in flight.
+ */
+public class ShardServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardServer.class);
+
+    private final Allocator allocator;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Instantiates a new Shard server bound to the loopback address. Connections are not accepted until started.
+     *
+     * @param allocator the allocator loaded with the regions of the shard
+     * @param port      the port, 0 for any free port
+     * @throws AllocatorException if the port cannot be bound
+     */
+    public ShardServer(Allocator allocator, int port) throws AllocatorException {
+        this.allocator = allocator;
+        try {
+            this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while starting shard server", e);
+        }
+        this.connections = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "allocator-shard-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts accepting connections
+     */
+    public void start() {
+        this.connections.execute(this::accept);
+        logger.info(LOG_SHARD_SERVER_STARTED, getPort());
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones
+     */
+    public void stop() {
+        try {
+            this.serverSocket.close();
+        } catch (IOException e) {
+            //Already closed
+        }
+        for (Socket socket : this.sockets) close(socket);
+        this.connections.shutdownNow();
+        logger.info(LOG_SHARD_SERVER_STOPPED, getPort());
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                Socket socket = this.serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                this.sockets.add(socket);
+                this.connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                //Closed by stop
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String response;
+                try {
+                    AllocationRequest request = ShardProtocol.parseRequest(line);
+                    response = this.allocator.getCosts(request.getHours(), request.getCpus(), request.getPrice());
+                } catch (AllocatorException e) {
+                    response = ShardProtocol.error(e.getMessage());
+                }
+                writer.write(response);
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException e) {
+            //Connection closed by the client or by stop
+        } finally {
+            this.sockets.remove(socket);
+            close(socket);
+        }
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //Already closed
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.techguru.allocator.shard;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.AllocatorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.techguru.allocator.constants.AllocatorConstants.LOG_ALLOCATE_SHARDS;
+
+/**
+ * ShardedAllocator - Coordinator of a catalog partitioned in shards, each holding a contiguous range of the regions
+ * in catalog order. A query is sent to every shard in parallel and the outputs are concatenated in shard order, which
+ * is the catalog order, so the output is the same as the one of a single allocator of the whole catalog.
+ * Each shard has its own timeout, a shard failing or answering late fails the query.
+ */
+public class ShardedAllocator implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedAllocator.class);
+
+    private final List<Shard> shards;
+    private final long timeoutMillis;
+
+    /**
+     * Instantiates a new Sharded allocator.
+     *
+     * @param shards        the shards, in the catalog order of their regions
+     * @param timeoutMillis the time each shard has to answer a query
+     */
+    public ShardedAllocator(List<? extends Shard> shards, long timeoutMillis) {
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Partitions the region cost per hour json of a catalog and loads an in-process allocator per shard
+     *
+     * @param serverTypesJson       the server types json, shared by every shard
+     * @param regionCostPerHourJson the region cost per hour json of the whole catalog
+     * @param shardCount            the # of shards
+     * @param config                the config of the allocator of each shard
+     * @param timeoutMillis         the time each shard has to answer a query
+     * @return the sharded allocator
+     * @throws AllocatorException if an input is not valid
+     */
+    public static ShardedAllocator inProcess(String serverTypesJson, String regionCostPerHourJson, int shardCount, AllocatorConfig config, long timeoutMillis) throws AllocatorException {
+        List<Shard> shards = new ArrayList<>(shardCount);
+        for (String shardJson : partition(regionCostPerHourJson, shardCount)) {
+            shards.add(new LocalShard(new Allocator(serverTypesJson, shardJson, config)));
+        }
+        return new ShardedAllocator(shards, timeoutMillis);
+    }
+
+    /**
+     * Splits the regions of a region cost per hour json in contiguous ranges of the same size, give or take one
+     *
+     * @param regionCostPerHourJson the region cost per hour json of the whole catalog
+     * @param shardCount            the # of shards
+     * @return the region cost per hour json of each shard, in catalog order
+     * @throws AllocatorException if the json is not valid or the # of shards is not positive
+     */
+    public static List<String> partition(String regionCostPerHourJson, int shardCount) throws AllocatorException {
+        if (shardCount <= 0) throw new AllocatorException("Shard count must be positive");
+        int regionCount = countRegions(new StringReader(regionCostPerHourJson));
+        List<String> shardJsons = new ArrayList<>(shardCount);
+        for (int s = 0; s < shardCount; s++) {
+            shardJsons.add(shard(new StringReader(regionCostPerHourJson), regionCount, s, shardCount));
+        }
+        return shardJsons;
+    }
+
+    /**
+     * Counts the regions of a region cost per hour json, skipping their prices token by token
+     *
+     * @param regionCostPerHourJson the region cost per hour json of the whole catalog
+     * @return the # of regions
+     * @throws AllocatorException if the json is not valid
+     */
+    public static int countRegions(Reader regionCostPerHourJson) throws AllocatorException {
+        try {
+            JsonReader reader = newJsonReader(regionCostPerHourJson);
+            int regionCount = 0;
+            reader.beginObject();
+            while (reader.hasNext()) { // for each region
+                reader.nextName();
+                reader.skipValue();
+                regionCount++;
+            }
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT) throw new MalformedJsonException("Unexpected content after the json document");
+            return regionCount;
+        } catch (MalformedJsonException | EOFException | IllegalStateException e) {
+            throw new AllocatorException("Not a valid json", e);
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while reading regions", e);
+        }
+    }
+
+    /**
+     * Copies the range of regions of a shard out of a region cost per hour json. The input is streamed and the regions
+     * of the other shards are skipped token by token, so only the range of the shard is ever held in memory.
+     *
+     * @param regionCostPerHourJson the region cost per hour json of the whole catalog
+     * @param regionCount           the # of regions of the whole catalog, see {@link #countRegions(Reader)}
+     * @param shardIndex            the index of the shard
+     * @param shardCount            the # of shards
+     * @return the region cost per hour json of the shard
+     * @throws AllocatorException if the json is not valid, or the shard index is not within the # of shards
+     */
+    public static String shard(Reader regionCostPerHourJson, int regionCount, int shardIndex, int shardCount) throws AllocatorException {
+        if (shardCount <= 0) throw new AllocatorException("Shard count must be positive");
+        if (shardIndex < 0 || shardIndex >= shardCount) throw new AllocatorException("Invalid shard index " + shardIndex);
+        int from = (int) ((long) shardIndex * regionCount / shardCount);
+        int to = (int) ((long) (shardIndex + 1) * regionCount / shardCount);
+        StringWriter shardJson = new StringWriter();
+        try {
+            JsonReader reader = newJsonReader(regionCostPerHourJson);
+            JsonWriter writer = new JsonWriter(shardJson);
+            writer.setLenient(true);
+            reader.beginObject();
+            writer.beginObject();
+            for (int r = 0; r < to && reader.hasNext(); r++) { // for each region up to the end of the range
+                String region = reader.nextName();
+                if (r < from) {
+                    reader.skipValue();
+                } else {
+                    writer.name(region);
+                    copy(reader, writer);
+                }
+            }
+            writer.endObject();
+            writer.flush();
+        } catch (MalformedJsonException | EOFException | IllegalStateException e) {
+            throw new AllocatorException("Not a valid json", e);
+        } catch (IOException e) {
+            throw new AllocatorException("Exception while reading regions", e);
+        }
+        return shardJson.toString();
+    }
+
+    private static JsonReader newJsonReader(Reader reader) {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        return jsonReader;
+    }
+
+    /**
+     * Copies the next value token by token, numbers keep their literal
+     */
+    private static void copy(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copy(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) copy(reader, writer);
+                reader.endArray();
+                writer.endArray();
+                break;
+            case NUMBER:
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                writer.value(reader.nextString());
+        }
+    }
+
+    /**
+     * Allocates server resources in the regions of every shard, with the same output as
+     * {@link Allocator#getCosts(Integer, Integer, Double)} on the whole catalog
+     *
+     * @param hours the required # of hours of resources
+     * @param cpus  the required # of cpus
+     * @param price the maximum price allowed for the allocation
+     * @return the costs, cpus if allocated for each region
+     * @throws AllocatorException if the request is not valid, or a shard fails or does not answer in time
+     */
+    public String getCosts(Integer hours, Integer cpus, Double price) throws AllocatorException {
+        Allocator.validateRequest(hours, cpus, price);
+        logger.info(LOG_ALLOCATE_SHARDS, this.shards.size());
+        List<CompletableFuture<String>> futures = new ArrayList<>(this.shards.size());
+        for (Shard shard : this.shards) {
+            futures.add(shard.getCosts(hours, cpus, price).orTimeout(this.timeoutMillis, TimeUnit.MILLISECONDS));
+        }
+        StringBuilder merged = new StringBuilder("[");
+        for (int s = 0; s < futures.size(); s++) {
+            String output = join(s, futures.get(s));
+            if (output.length() > 2) {
+                if (merged.length() > 1) merged.append(',');
+                merged.append(output, 1, output.length() - 1);
+            }
+        }
+        return merged.append(']').toString();
+    }
+
+    private String join(int shard, CompletableFuture<String> future) throws AllocatorException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof TimeoutException) throw new AllocatorException("Shard " + shard + " did not answer within " + this.timeoutMillis + " ms");
+            if (cause instanceof AllocatorException) throw (AllocatorException) cause;
+            throw new AllocatorException("Exception while querying shard " + shard, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AllocatorException("Interrupted while querying shard " + shard, e);
+        }
+    }
+
+    /**
+     * Gets the # of shards.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return this.shards.size();
+    }
+
+    /**
+     * Closes every shard
+     */
+    @Override
+    public void close() {
+        for (Shard shard : this.shards) shard.close();
+    }
+}
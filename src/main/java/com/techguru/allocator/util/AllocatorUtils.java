@@ -47,4 +47,38 @@ public interface AllocatorUtils {
     static String dollarValue(Double value) {
         return NumberFormat.getCurrencyInstance(Locale.US).format(value);
     }
+
+    /**
+     * Writes the USD representation of a value already rounded to cents into the buffer, without allocating.
+     * The output is the same as {@link #dollarValue(Double)}. Values that are not finite or too large to be represented
+     * in cents exactly are not written, their representation may not fit the buffer and is to be taken from
+     * {@link #dollarValue(Double)}.
+     *
+     * @param value  the value, rounded to 2 decimal places
+     * @param buffer the buffer, at least 32 chars long
+     * @return the # of chars written from the start of the buffer, or -1 if the value was not written
+     */
+    static int dollarValue(double value, char[] buffer) {
+        double cents = Math.abs(value) * 100;
+        if (!(cents < 9.0e15)) return -1;
+        long remaining = Math.round(cents);
+        int position = buffer.length;
+        buffer[--position] = (char) ('0' + remaining % 10);
+        remaining /= 10;
+        buffer[--position] = (char) ('0' + remaining % 10);
+        remaining /= 10;
+        buffer[--position] = '.';
+        int digits = 0;
+        do {
+            if (digits > 0 && digits % 3 == 0) buffer[--position] = ',';
+            buffer[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+            digits++;
+        } while (remaining > 0);
+        buffer[--position] = '$';
+        if (Double.doubleToRawLongBits(value) < 0) buffer[--position] = '-';
+        int length = buffer.length - position;
+        System.arraycopy(buffer, position, buffer, 0, length);
+        return length;
+    }
 }
@@ -1,12 +1,52 @@
 package com.techguru.allocator;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.techguru.allocator.catalog.CatalogFile;
+import com.techguru.allocator.constants.AllocationMode;
+import com.techguru.allocator.constants.AllocationStrategy;
+import com.techguru.allocator.constants.ExecutionStrategy;
 import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.exception.AllocatorRejectedException;
+import com.techguru.allocator.metrics.RecordingAllocatorMetrics;
+import com.techguru.allocator.pojo.AllocationRequest;
+import com.techguru.allocator.pojo.AllocatorConfig;
+import com.techguru.allocator.pojo.CacheStats;
+import com.techguru.allocator.pojo.CostCurve;
+import com.techguru.allocator.pojo.Reservation;
+import com.techguru.allocator.pojo.ServerTypeFilter;
 import com.techguru.allocator.util.AllocatorUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class AllocatorTest {
@@ -69,4 +109,565 @@ class AllocatorTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void getCosts_SameTotalCostsAsPerServerTypeSum_IfPricedOverHours() {
+        try {
+            String serverTypesJson = new String(AllocatorTest.class.getClassLoader().getResourceAsStream(SERVER_TYPES_VALIDJSON).readAllBytes());
+            String regionCostPerHourJson = new String(AllocatorTest.class.getClassLoader().getResourceAsStream(REGION_COST_PERHOUR_VALIDJSON).readAllBytes());
+            Allocator allocator = new Allocator(serverTypesJson, regionCostPerHourJson);
+            //Half cent tie, $469.365 exactly
+            assertEquals("$469.37", JsonParser.parseString(allocator.getCosts(3, 303, 515.1)).getAsJsonArray().get(1).getAsJsonObject().get("totalCost").getAsString());
+
+            JsonObject serverTypes = JsonParser.parseString(serverTypesJson).getAsJsonObject();
+            JsonObject regions = JsonParser.parseString(regionCostPerHourJson).getAsJsonObject();
+            for (int hours = 1; hours <= 60; hours++) {
+                for (int cpus = 1; cpus <= 320; cpus += 7) {
+                    double price = cpus * 1.7;
+                    assertTotalCosts(serverTypes, regions, hours, cpus, null, allocator.getCosts(hours, cpus, null));
+                    assertTotalCosts(serverTypes, regions, hours, null, price, allocator.getCosts(hours, null, price));
+                    assertTotalCosts(serverTypes, regions, hours, cpus, price, allocator.getCosts(hours, cpus, price));
+                }
+            }
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    /**
+     * Checks the total cost of each region against the greedy allocation summed as count * price * hours per server
+     * type, in 'cost per hour per CPU' order, then rounded to cents
+     */
+    private static void assertTotalCosts(JsonObject serverTypes, JsonObject regions, int hours, Integer cpus, Double price, String resultJson) {
+        JsonArray results = JsonParser.parseString(resultJson).getAsJsonArray();
+        int r = 0;
+        for (Map.Entry<String, JsonElement> region : regions.entrySet()) {
+            List<Map.Entry<String, JsonElement>> sorted = new ArrayList<>(region.getValue().getAsJsonObject().entrySet());
+            sorted.sort(Comparator.comparingDouble(e -> e.getValue().getAsDouble() / serverTypes.get(e.getKey()).getAsInt()));
+            int targetCpus = cpus == null ? Integer.MAX_VALUE : cpus;
+            double targetPricePerHour = price == null ? Double.POSITIVE_INFINITY : price / hours;
+            double totalCost = 0.0;
+            for (Map.Entry<String, JsonElement> serverType : sorted) {
+                int n = serverTypes.get(serverType.getKey()).getAsInt();
+                double cost = serverType.getValue().getAsDouble();
+                if (targetCpus > 0 && targetCpus >= n && targetPricePerHour > 0 && targetPricePerHour >= cost) {
+                    int allocated = (int) Math.min(targetCpus / n, (long) (targetPricePerHour / cost));
+                    if (price == null) targetCpus = targetCpus - (n * allocated);
+                    else targetPricePerHour = targetPricePerHour - (allocated * cost);
+                    totalCost = totalCost + (allocated * cost * hours);
+                }
+            }
+            assertEquals(AllocatorUtils.dollarValue(AllocatorUtils.round(totalCost, 2)), results.get(r++).getAsJsonObject().get("totalCost").getAsString(),
+                    region.getKey() + " for " + hours + " hours, " + cpus + " cpus at price " + price);
+        }
+    }
+
+    @Test
+    void getCosts_SortedByCostPerHourPerCpu_IfGetCostsByHoursAndCpus() {
+        InputStream serverTypesInputStream = AllocatorTest.class.getClassLoader().getResourceAsStream(SERVER_TYPES_VALIDJSON);
+        InputStream regionCostPerHourInputStream = AllocatorTest.class.getClassLoader().getResourceAsStream(REGION_COST_PERHOUR_VALIDJSON);
+        try {
+            Allocator allocator = new Allocator(serverTypesInputStream, regionCostPerHourInputStream);
+            String resultJson = allocator.getCosts(24, 115, null);
+            assertEquals("[{\"region\":\"us-east\",\"totalCpus\":115,\"totalCost\":\"$243.60\",\"servers\":[{\"8xlarge\":7},{\"xlarge\":1},{\"large\":1}]},"
+                    + "{\"region\":\"us-west\",\"totalCpus\":115,\"totalCost\":\"$228.48\",\"servers\":[{\"8xlarge\":7},{\"large\":3}]},"
+                    + "{\"region\":\"asia\",\"totalCpus\":115,\"totalCost\":\"$205.68\",\"servers\":[{\"8xlarge\":7},{\"xlarge\":1},{\"large\":1}]}]", resultJson);
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_CheaperThanGreedy_IfOptimalStrategy() {
+        String serverTypesJson = "{\"a\": 3, \"b\": 2, \"d\": 1}";
+        String regionCostPerHourJson = "{\"r1\": {\"d\": 5.0, \"b\": 2.2, \"a\": 3.0}}";
+        try {
+            Allocator greedy = new Allocator(serverTypesJson, regionCostPerHourJson);
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":4,\"totalCost\":\"$8.00\",\"servers\":[{\"a\":1},{\"d\":1}]}]", greedy.getCosts(1, 4, null));
+
+            AllocatorConfig config = AllocatorConfig.builder().allocationStrategy(AllocationStrategy.OPTIMAL).optimalMaxCpus(8).build();
+            Allocator optimal = new Allocator(serverTypesJson, regionCostPerHourJson, config);
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":4,\"totalCost\":\"$4.40\",\"servers\":[{\"b\":2}]}]", optimal.getCosts(1, 4, null));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":40,\"totalCost\":\"$40.40\",\"servers\":[{\"a\":12},{\"b\":2}]}]", optimal.getCosts(1, 40, null));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_NoBudgetLeftUnused_IfOptimalStrategyAndPrice() {
+        String serverTypesJson = "{\"a\": 3, \"b\": 2, \"d\": 1}";
+        String regionCostPerHourJson = "{\"r1\": {\"d\": 5.0, \"b\": 2.2, \"a\": 3.0}}";
+        try {
+            Allocator greedy = new Allocator(serverTypesJson, regionCostPerHourJson);
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":3,\"totalCost\":\"$3.00\",\"servers\":[{\"a\":1}]}]", greedy.getCosts(1, null, 4.4));
+
+            AllocatorConfig config = AllocatorConfig.builder().allocationStrategy(AllocationStrategy.OPTIMAL).optimalMaxCpus(8).build();
+            Allocator optimal = new Allocator(serverTypesJson, regionCostPerHourJson, config);
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":4,\"totalCost\":\"$4.40\",\"servers\":[{\"b\":2}]}]", optimal.getCosts(1, null, 4.4));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":3,\"totalCost\":\"$3.00\",\"servers\":[{\"a\":1}]}]", optimal.getCosts(1, 4, 4.0));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":40,\"totalCost\":\"$40.40\",\"servers\":[{\"a\":12},{\"b\":2}]}]", optimal.getCosts(1, 40, 41.0));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":31,\"totalCost\":\"$62.80\",\"servers\":[{\"a\":9},{\"b\":2}]}]", optimal.getCosts(2, null, 64.0));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_SameAsSingleRequests_IfGetCostsByBatch() {
+        InputStream serverTypesInputStream = AllocatorTest.class.getClassLoader().getResourceAsStream(SERVER_TYPES_VALIDJSON);
+        InputStream regionCostPerHourInputStream = AllocatorTest.class.getClassLoader().getResourceAsStream(REGION_COST_PERHOUR_VALIDJSON);
+        try {
+            Allocator allocator = new Allocator(serverTypesInputStream, regionCostPerHourInputStream);
+            String resultJson = allocator.getCosts(Arrays.asList(
+                    AllocationRequest.builder().hours(24).cpus(115).build(),
+                    AllocationRequest.builder().hours(8).price(29.0).build(),
+                    AllocationRequest.builder().hours(7).cpus(214).price(95.0).build()));
+            assertEquals("[" + allocator.getCosts(24, 115, null) + "," + allocator.getCosts(8, null, 29.0) + "," + allocator.getCosts(7, 214, 95.0) + "]", resultJson);
+            assertThrows(AllocatorException.class, () -> allocator.getCosts(Arrays.asList(AllocationRequest.builder().hours(24).cpus(115).build(), null)));
+            assertThrows(AllocatorException.class, () -> allocator.getCostsPerRequest(Collections.singletonList(null)));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_SameAsSequential_IfParallelExecutionStrategy() {
+        String serverTypesJson = "{\"large\": 1, \"xlarge\": 2, \"2xlarge\": 4, \"4xlarge\": 8, \"8xlarge\": 16, \"10xlarge\": 32}";
+        StringBuilder regionCostPerHourJson = new StringBuilder("{");
+        for (int r = 0; r < 500; r++) {
+            if (r > 0) regionCostPerHourJson.append(',');
+            regionCostPerHourJson.append("\"region-").append(r).append("\": {\"large\": ").append(0.10 + r % 7 * 0.01)
+                    .append(", \"4xlarge\": ").append(0.70 + r % 11 * 0.02).append(", \"10xlarge\": ").append(2.80 + r % 13 * 0.05).append('}');
+        }
+        regionCostPerHourJson.append('}');
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Allocator sequential = new Allocator(serverTypesJson, regionCostPerHourJson.toString());
+            Allocator forkJoin = new Allocator(serverTypesJson, regionCostPerHourJson.toString(), AllocatorConfig.builder().executionStrategy(ExecutionStrategy.FORK_JOIN).build());
+            Allocator pooled = new Allocator(serverTypesJson, regionCostPerHourJson.toString(), AllocatorConfig.builder().executionStrategy(ExecutionStrategy.EXECUTOR).executor(executor).build());
+            String expected = sequential.getCosts(7, 214, 95.0);
+            assertEquals(expected, forkJoin.getCosts(7, 214, 95.0));
+            assertEquals(expected, pooled.getCosts(7, 214, 95.0));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void getCosts_RescaledByHours_IfCachedByCpus() {
+        try {
+            String serverTypesJson = new String(AllocatorTest.class.getClassLoader().getResourceAsStream(SERVER_TYPES_VALIDJSON).readAllBytes());
+            String regionCostPerHourJson = new String(AllocatorTest.class.getClassLoader().getResourceAsStream(REGION_COST_PERHOUR_VALIDJSON).readAllBytes());
+            Allocator uncached = new Allocator(serverTypesJson, regionCostPerHourJson);
+            Allocator cached = new Allocator(serverTypesJson, regionCostPerHourJson, AllocatorConfig.builder().cacheSize(16).build());
+            assertEquals(uncached.getCosts(24, 115, null), cached.getCosts(24, 115, null));
+            assertEquals(uncached.getCosts(12, 115, null), cached.getCosts(12, 115, null));
+            assertEquals(uncached.getCosts(8, null, 29.0), cached.getCosts(8, null, 29.0));
+            assertEquals(uncached.getCosts(16, null, 29.0), cached.getCosts(16, null, 29.0));
+            assertEquals(uncached.getCosts(16, null, 58.0), cached.getCosts(16, null, 58.0));
+            CacheStats stats = cached.getCacheStats();
+            assertEquals(2, stats.getHits());
+            assertEquals(3, stats.getMisses());
+            assertEquals(3, stats.getSize());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_ThrowsException_IfInputIsValidJsonAndInvalidStructure() {
+        assertThrows(AllocatorException.class, () -> new Allocator("[1, 2]", "{}"));
+        assertThrows(AllocatorException.class, () -> new Allocator("{\"large\": 1}", "{\"us-east\": {\"large\": \"cheap\"}}"));
+        assertThrows(AllocatorException.class, () -> new Allocator("{\"large\": 1}", "{\"us-east\": {\"large\": 0.12, \"large\": 0.13}}"));
+        assertThrows(AllocatorException.class, () -> new Allocator("{\"large\": 1}", "{\"us-east\": {\"large\": 0.12}} {}"));
+    }
+
+    @Test
+    void getCosts_SameAsNewAllocator_IfPricesUpdated() {
+        String serverTypesJson = "{\"large\": 1, \"xlarge\": 2, \"8xlarge\": 16}";
+        try {
+            Allocator allocator = new Allocator(serverTypesJson, "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}, \"asia\": {\"large\": 0.11, \"8xlarge\": 1.18}}",
+                    AllocatorConfig.builder().cacheSize(16).build());
+            allocator.getCosts(24, 115, null);
+            Map<String, Map<String, Double>> changes = new HashMap<>();
+            changes.put("asia", Collections.singletonMap("8xlarge", 2.5));
+            changes.put("eu-west", Collections.singletonMap("xlarge", 0.2));
+            allocator.updatePrices(changes);
+
+            Allocator expected = new Allocator(serverTypesJson, "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}, \"asia\": {\"large\": 0.11, \"8xlarge\": 2.5}, \"eu-west\": {\"xlarge\": 0.2}}");
+            assertEquals(expected.getCosts(24, 115, null), allocator.getCosts(24, 115, null));
+            assertEquals(2, allocator.getCatalogVersion());
+            assertThrows(AllocatorException.class, () -> allocator.updatePrices(Collections.singletonMap("asia", Collections.singletonMap("16xlarge", 3.0))));
+            assertEquals(2, allocator.getCatalogVersion());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_SameBytesAsJsonString_IfWrittenToOutputStream() {
+        String serverTypesJson = "{\"large\": 1, \"x\\tlarge\": 2, \"8xlarge\": 16}";
+        String regionCostPerHourJson = "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}, \"<eu&west='\\\"1\\\"'>\\\\ \\u2028 \u00e9\": {\"large\": 0.11, \"x\\tlarge\": 0.2}}";
+        try {
+            Allocator allocator = new Allocator(serverTypesJson, regionCostPerHourJson);
+            for (Integer hours : Arrays.asList(1, 24, 100000)) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                allocator.getCosts(hours, 115, null, outputStream);
+                assertEquals(allocator.getCosts(hours, 115, null), outputStream.toString(StandardCharsets.UTF_8));
+                StringWriter writer = new StringWriter();
+                allocator.getCosts(hours, null, 29.0 * hours, writer);
+                assertEquals(allocator.getCosts(hours, null, 29.0 * hours), writer.toString());
+            }
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_SameBytesAsJsonString_IfTotalCostHuge() {
+        String serverTypesJson = "{\"large\": 1, \"8xlarge\": 16}";
+        String regionCostPerHourJson = "{\"us-east\": {\"large\": 1.0e12, \"8xlarge\": 1.6e13}, \"asia\": {\"large\": 1.0e290}}";
+        try {
+            Allocator allocator = new Allocator(serverTypesJson, regionCostPerHourJson);
+            for (Integer hours : Arrays.asList(1, 24, 100000)) {
+                String expected = allocator.getCosts(hours, 115, null);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                allocator.getCosts(hours, 115, null, outputStream);
+                assertEquals(expected, outputStream.toString(StandardCharsets.UTF_8));
+                StringWriter writer = new StringWriter();
+                allocator.getCosts(hours, 115, null, writer);
+                assertEquals(expected, writer.toString());
+            }
+            char[] buffer = new char[32];
+            assertEquals(-1, AllocatorUtils.dollarValue(1.0e290, buffer));
+            assertEquals(AllocatorUtils.dollarValue(1234567890123.45), new String(buffer, 0, AllocatorUtils.dollarValue(1234567890123.45, buffer)));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_RecordsMetrics_IfMetricsConfigured() {
+        RecordingAllocatorMetrics metrics = new RecordingAllocatorMetrics();
+        try {
+            Allocator allocator = new Allocator("{\"large\": 1, \"8xlarge\": 16}", "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}, \"asia\": {\"large\": 0.11}}",
+                    AllocatorConfig.builder().cacheSize(16).metrics(metrics).build());
+            assertEquals(allocator.getCatalogVersion(), metrics.getCatalogVersion());
+            allocator.getCosts(24, 115, null);
+            allocator.getCosts(12, 115, null);
+            allocator.getCosts(8, null, 29.0);
+            allocator.getCosts(Arrays.asList(AllocationRequest.builder().hours(8).cpus(20).price(29.0).build(), AllocationRequest.builder().hours(24).cpus(115).build()));
+            allocator.updatePrices(Collections.singletonMap("asia", Collections.singletonMap("8xlarge", 1.2)));
+            assertEquals(3, metrics.getLatency(AllocationMode.BY_CPUS).getCount());
+            assertEquals(1, metrics.getLatency(AllocationMode.BY_PRICE).getCount());
+            assertEquals(1, metrics.getLatency(AllocationMode.BY_CPUS_AND_PRICE).getCount());
+            assertEquals(2, metrics.getCacheHits());
+            assertEquals(3, metrics.getCacheMisses());
+            assertEquals(6, metrics.getRegionsEvaluated());
+            assertEquals(9, metrics.getServerTypesScanned());
+            assertEquals(2, metrics.getCatalogVersion());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCheapestRegions_SameAsSortedCosts_IfPruned() {
+        String serverTypesJson = "{\"large\": 1, \"xlarge\": 2, \"2xlarge\": 4, \"4xlarge\": 8, \"8xlarge\": 16, \"10xlarge\": 32}";
+        StringBuilder regionCostPerHourJson = new StringBuilder("{");
+        for (int r = 0; r < 500; r++) {
+            if (r > 0) regionCostPerHourJson.append(',');
+            regionCostPerHourJson.append("\"region-").append(r).append("\": {\"xlarge\": ").append(0.21 + r % 17 * 0.013)
+                    .append(", \"4xlarge\": ").append(0.70 + r % 11 * 0.021).append(", \"10xlarge\": ").append(2.80 + r % 13 * 0.047).append('}');
+        }
+        regionCostPerHourJson.append(", \"empty\": {}}");
+        RecordingAllocatorMetrics metrics = new RecordingAllocatorMetrics();
+        try {
+            for (AllocationStrategy strategy : AllocationStrategy.values()) {
+                Allocator allocator = new Allocator(serverTypesJson, regionCostPerHourJson.toString(), AllocatorConfig.builder().allocationStrategy(strategy).metrics(metrics).build());
+                long evaluated = metrics.getRegionsEvaluated();
+                allocator.getCheapestRegions(24, 115, null, 5);
+                assertTrue(metrics.getRegionsEvaluated() - evaluated < 100);
+                for (int k : new int[]{1, 5, 600}) {
+                    assertEquals(cheapest(allocator.getCosts(24, 115, null), k), allocator.getCheapestRegions(24, 115, null, k));
+                    assertEquals(cheapest(allocator.getCosts(8, null, 29.0), k), allocator.getCheapestRegions(8, null, 29.0, k));
+                    assertEquals(cheapest(allocator.getCosts(7, 214, 95.0), k), allocator.getCheapestRegions(7, 214, 95.0, k));
+                }
+            }
+            assertThrows(AllocatorException.class, () -> new Allocator(serverTypesJson, "{}").getCheapestRegions(24, 115, null, 0));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    /**
+     * The K regions with the lowest total cost of the full output, regions where nothing was allocated left out
+     */
+    private static String cheapest(String resultJson, int k) {
+        List<JsonElement> results = new ArrayList<>();
+        JsonParser.parseString(resultJson).getAsJsonArray().forEach(results::add);
+        results.removeIf(e -> e.getAsJsonObject().get("totalCpus").getAsInt() == 0);
+        results.sort(Comparator.comparingDouble(e -> Double.parseDouble(e.getAsJsonObject().get("totalCost").getAsString().substring(1))));
+        JsonArray expected = new JsonArray();
+        results.stream().limit(k).forEach(expected::add);
+        return expected.toString();
+    }
+
+    @Test
+    void getCostCurves_SameAsGetCosts_IfSweptOverCpus() {
+        String serverTypesJson = "{\"large\": 1, \"xlarge\": 2, \"2xlarge\": 4, \"4xlarge\": 8, \"8xlarge\": 16, \"10xlarge\": 32}";
+        String regionCostPerHourJson = "{\"us-east\": {\"xlarge\": 0.23, \"2xlarge\": 0.45, \"4xlarge\": 0.774, \"8xlarge\": 1.4, \"10xlarge\": 2.82},"
+                + " \"us-west\": {\"2xlarge\": 0.413, \"4xlarge\": 0.89, \"10xlarge\": 2.97}, \"asia\": {\"large\": 0.11, \"xlarge\": 0.20, \"8xlarge\": 1.18}, \"empty\": {}}";
+        try {
+            for (AllocationStrategy strategy : AllocationStrategy.values()) {
+                Allocator allocator = new Allocator(serverTypesJson, regionCostPerHourJson, AllocatorConfig.builder().allocationStrategy(strategy).optimalMaxCpus(64).build());
+                for (int fromCpus : new int[]{3, 40, 64, 65, 150}) { // within, at and above the table bound
+                    List<CostCurve> curves = allocator.getCostCurves(24, fromCpus, 300);
+                    assertEquals(4, curves.size());
+                    for (int cpus = fromCpus; cpus <= 300; cpus++) {
+                        JsonArray results = JsonParser.parseString(allocator.getCosts(24, cpus, null)).getAsJsonArray();
+                        for (int r = 0; r < curves.size(); r++) {
+                            CostCurve curve = curves.get(r);
+                            assertEquals(results.get(r).getAsJsonObject().get("region").getAsString(), curve.getRegion());
+                            assertEquals(results.get(r).getAsJsonObject().get("totalCpus").getAsInt(), curve.getTotalCpus()[cpus - fromCpus]);
+                            assertEquals(results.get(r).getAsJsonObject().get("totalCost").getAsString(), AllocatorUtils.dollarValue(curve.getTotalCost()[cpus - fromCpus]));
+                        }
+                    }
+                }
+            }
+            assertThrows(AllocatorException.class, () -> new Allocator(serverTypesJson, regionCostPerHourJson).getCostCurves(24, 10, 9));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCostsAcrossRegions_CheapestPairsFirst_IfRegionsCapped() {
+        InputStream serverTypesInputStream = AllocatorTest.class.getClassLoader().getResourceAsStream(SERVER_TYPES_VALIDJSON);
+        InputStream regionCostPerHourInputStream = AllocatorTest.class.getClassLoader().getResourceAsStream(REGION_COST_PERHOUR_VALIDJSON);
+        try {
+            Allocator allocator = new Allocator(serverTypesInputStream, regionCostPerHourInputStream);
+            assertEquals("{\"totalCpus\":115,\"totalCost\":\"$205.68\",\"regions\":[{\"region\":\"asia\",\"totalCpus\":115,\"totalCost\":\"$205.68\",\"servers\":[{\"8xlarge\":7},{\"xlarge\":1},{\"large\":1}]}]}",
+                    allocator.getCostsAcrossRegions(24, 115, null, null));
+            assertEquals("{\"totalCpus\":115,\"totalCost\":\"$215.28\",\"regions\":[{\"region\":\"us-east\",\"totalCpus\":3,\"totalCost\":\"$8.40\",\"servers\":[{\"xlarge\":1},{\"large\":1}]},"
+                            + "{\"region\":\"us-west\",\"totalCpus\":48,\"totalCost\":\"$93.60\",\"servers\":[{\"8xlarge\":3}]},{\"region\":\"asia\",\"totalCpus\":64,\"totalCost\":\"$113.28\",\"servers\":[{\"8xlarge\":4}]}]}",
+                    allocator.getCostsAcrossRegions(24, 115, null, Collections.singletonMap("asia", 64)));
+
+            for (String region : new String[]{"us-east", "us-west", "asia"}) {
+                Map<String, Integer> caps = new HashMap<>();
+                for (String other : new String[]{"us-east", "us-west", "asia"}) caps.put(other, other.equals(region) ? null : 0);
+                String single = JsonParser.parseString(allocator.getCosts(7, 214, 95.0)).getAsJsonArray().get(Arrays.asList("us-east", "us-west", "asia").indexOf(region)).toString();
+                assertEquals(single, JsonParser.parseString(allocator.getCostsAcrossRegions(7, 214, 95.0, caps)).getAsJsonObject().get("regions").getAsJsonArray().get(0).toString());
+            }
+            assertThrows(AllocatorException.class, () -> allocator.getCostsAcrossRegions(24, 115, null, Collections.singletonMap("europe", 64)));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getWindowCosts_RankedByWindowCost_IfHourlyPrices() {
+        String serverTypesJson = "{\"a\": 1, \"b\": 2}";
+        String regionCostPerHourJson = "{\"r1\": {\"a\": 1.0, \"b\": 3.0}}";
+        try {
+            Allocator allocator = new Allocator(serverTypesJson, regionCostPerHourJson);
+            assertEquals(allocator.getCosts(8, 2, null), allocator.getWindowCosts(5, 8, 2, null));
+            assertEquals(allocator.getCosts(8, null, 29.0), allocator.getWindowCosts(5, 8, null, 29.0));
+
+            double[] offPeak = new double[24];
+            Arrays.fill(offPeak, 3.0);
+            Arrays.fill(offPeak, 0, 8, 1.0);
+            allocator.updateHourlyPrices(Collections.singletonMap("r1", Collections.singletonMap("b", offPeak)));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":2,\"totalCost\":\"$8.00\",\"servers\":[{\"b\":1}]}]", allocator.getWindowCosts(0, 8, 2, null));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":2,\"totalCost\":\"$16.00\",\"servers\":[{\"a\":2}]}]", allocator.getWindowCosts(8, 8, 2, null));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":2,\"totalCost\":\"$20.00\",\"servers\":[{\"b\":1}]}]", allocator.getWindowCosts(44, 12, 2, null));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":2,\"totalCost\":\"$672.00\",\"servers\":[{\"a\":2}]}]", allocator.getWindowCosts(0, 336, 2, null));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":4,\"totalCost\":\"$16.00\",\"servers\":[{\"b\":2}]}]", allocator.getWindowCosts(0, 8, null, 17.0));
+
+            Map<String, double[]> mismatched = new HashMap<>();
+            mismatched.put("a", new double[24]);
+            mismatched.put("b", new double[168]);
+            assertThrows(AllocatorException.class, () -> allocator.updateHourlyPrices(Collections.singletonMap("r1", mismatched)));
+            assertEquals("[{\"region\":\"r1\",\"totalCpus\":2,\"totalCost\":\"$8.00\",\"servers\":[{\"b\":1}]}]", allocator.getWindowCosts(0, 8, 2, null));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_SameAsCatalogWithoutFilteredTypes_IfFiltered() {
+        try {
+            String serverTypesJson = new String(AllocatorTest.class.getClassLoader().getResourceAsStream(SERVER_TYPES_VALIDJSON).readAllBytes());
+            String regionCostPerHourJson = new String(AllocatorTest.class.getClassLoader().getResourceAsStream(REGION_COST_PERHOUR_VALIDJSON).readAllBytes());
+            Allocator allocator = new Allocator(serverTypesJson, regionCostPerHourJson);
+            allocator.updateRegionTags(Map.of("us-east", Set.of("us"), "us-west", Set.of("us"), "asia", Set.of("apac")));
+
+            //Every type with at least 4 cpus but 10xlarge, in the regions tagged us
+            JsonObject filtered = JsonParser.parseString(regionCostPerHourJson).getAsJsonObject();
+            filtered.remove("asia");
+            for (String region : filtered.keySet()) {
+                for (String serverType : Arrays.asList("large", "xlarge", "10xlarge")) filtered.getAsJsonObject(region).remove(serverType);
+            }
+            Allocator expected = new Allocator(serverTypesJson, filtered.toString());
+            ServerTypeFilter filter = ServerTypeFilter.builder().minCpus(4).excludedServerTypes(Set.of("10xlarge")).regionTags(Set.of("us")).build();
+            assertEquals(expected.getCosts(24, 115, null), allocator.getCosts(24, 115, null, filter));
+            assertEquals(expected.getCosts(8, null, 29.0), allocator.getCosts(8, null, 29.0, filter));
+            assertEquals(expected.getCosts(7, 214, 95.0), allocator.getCosts(7, 214, 95.0, filter));
+
+            ServerTypeFilter none = ServerTypeFilter.builder().build();
+            assertEquals(allocator.getCosts(7, 214, 95.0), allocator.getCosts(7, 214, 95.0, none));
+            assertEquals(allocator.getCosts(7, 214, 95.0), allocator.getCosts(7, 214, 95.0, (ServerTypeFilter) null));
+            assertEquals("[{\"region\":\"asia\",\"totalCpus\":10,\"totalCost\":\"$8.00\",\"servers\":[{\"xlarge\":5}]}]",
+                    allocator.getCosts(8, 10, null, ServerTypeFilter.builder().serverTypes(Set.of("large", "xlarge")).regionTags(Set.of("apac")).build()));
+
+            assertThrows(AllocatorException.class, () -> allocator.getCosts(8, 10, null, ServerTypeFilter.builder().excludedServerTypes(Set.of("16xlarge")).build()));
+            assertThrows(AllocatorException.class, () -> allocator.getCosts(8, 10, null, ServerTypeFilter.builder().regionTags(Set.of("eu")).build()));
+            assertThrows(AllocatorException.class, () -> allocator.getCosts(8, 10, null, ServerTypeFilter.builder().minCpus(8).maxCpus(4).build()));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void reserve_NeverExceedsCapacity_IfReservedConcurrently() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Allocator allocator = new Allocator("{\"large\": 1, \"8xlarge\": 16}", "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}, \"asia\": {\"large\": 0.11}}");
+            Map<String, Integer> capacity = new HashMap<>();
+            capacity.put("large", 100);
+            capacity.put("8xlarge", 5);
+            allocator.updateCapacity(Collections.singletonMap("us-east", capacity));
+
+            Reservation first = allocator.reserve("us-east", 24, 40, null);
+            assertEquals("[{8xlarge=2}, {large=8}]", first.getServers().toString());
+            assertEquals(3, allocator.getRemainingCapacity("us-east", "8xlarge"));
+            assertTrue(allocator.release(first));
+            assertFalse(allocator.release(first));
+            assertEquals(5, allocator.getRemainingCapacity("us-east", "8xlarge"));
+
+            List<Future<List<Reservation>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Reservation> reserved = new ArrayList<>();
+                    try {
+                        while (true) reserved.add(allocator.reserve("us-east", 1, 20, null));
+                    } catch (AllocatorException e) {
+                        return reserved;
+                    }
+                }));
+            }
+            List<Reservation> reserved = new ArrayList<>();
+            for (Future<List<Reservation>> future : futures) reserved.addAll(future.get());
+            assertEquals(180, reserved.stream().mapToInt(Reservation::getTotalCpus).sum());
+            assertEquals(0, allocator.getRemainingCapacity("us-east", "large"));
+            assertEquals(0, allocator.getRemainingCapacity("us-east", "8xlarge"));
+            assertEquals(Integer.MAX_VALUE, allocator.getRemainingCapacity("asia", "large"));
+            for (Reservation reservation : reserved) assertTrue(allocator.release(reservation));
+            assertEquals(100, allocator.getRemainingCapacity("us-east", "large"));
+            assertEquals(5, allocator.getRemainingCapacity("us-east", "8xlarge"));
+            assertThrows(AllocatorException.class, () -> allocator.reserve("eu-west", 1, 7, null));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void getCosts_SameAsJsonInputs_IfLoadedFromCatalogFile(@TempDir Path tempDir) {
+        Path catalogFile = tempDir.resolve("catalog.bin");
+        try (InputStream serverTypesInputStream = AllocatorTest.class.getClassLoader().getResourceAsStream(SERVER_TYPES_VALIDJSON);
+             InputStream regionCostPerHourInputStream = AllocatorTest.class.getClassLoader().getResourceAsStream(REGION_COST_PERHOUR_VALIDJSON)) {
+            CatalogFile.compile(new InputStreamReader(serverTypesInputStream, StandardCharsets.UTF_8), new InputStreamReader(regionCostPerHourInputStream, StandardCharsets.UTF_8), catalogFile);
+            String serverTypesJson = new String(AllocatorTest.class.getClassLoader().getResourceAsStream(SERVER_TYPES_VALIDJSON).readAllBytes());
+            String regionCostPerHourJson = new String(AllocatorTest.class.getClassLoader().getResourceAsStream(REGION_COST_PERHOUR_VALIDJSON).readAllBytes());
+            for (AllocationStrategy strategy : AllocationStrategy.values()) {
+                AllocatorConfig config = AllocatorConfig.builder().allocationStrategy(strategy).build();
+                Allocator expected = new Allocator(serverTypesJson, regionCostPerHourJson, config);
+                Allocator mapped = Allocator.fromCatalogFile(catalogFile, config);
+                assertEquals(expected.getCosts(24, 115, null), mapped.getCosts(24, 115, null));
+                assertEquals(expected.getCosts(8, null, 29.0), mapped.getCosts(8, null, 29.0));
+                assertEquals(expected.getCosts(7, 214, 95.0), mapped.getCosts(7, 214, 95.0));
+                assertEquals(expected.getCheapestRegions(24, 115, null, 2), mapped.getCheapestRegions(24, 115, null, 2));
+            }
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCostsAsync_RejectsAndSkipsCancelled_IfSaturated() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            Allocator allocator = new Allocator("{\"large\": 1, \"8xlarge\": 16}", "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}}",
+                    AllocatorConfig.builder().asyncExecutor(executor).maxInFlight(2).build());
+            executor.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            CompletableFuture<String> first = allocator.getCostsAsync(24, 115, null);
+            CompletableFuture<String> cancelled = allocator.getCostsAsync(8, null, 29.0);
+            CompletableFuture<String> rejected = allocator.getCostsAsync(7, 214, 95.0);
+            assertEquals(2, allocator.getInFlightCount());
+            ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+            assertTrue(e.getCause() instanceof AllocatorRejectedException);
+            assertTrue(cancelled.cancel(false));
+            assertEquals(1, allocator.getInFlightCount());
+
+            blocked.countDown();
+            assertEquals(allocator.getCosts(24, 115, null), first.get(10, TimeUnit.SECONDS));
+            assertTrue(cancelled.isCancelled());
+            assertEquals(allocator.getCosts(7, 214, 95.0), allocator.getCostsAsync(7, 214, 95.0).get(10, TimeUnit.SECONDS));
+            executor.submit(() -> null).get(10, TimeUnit.SECONDS);
+            assertEquals(0, allocator.getInFlightCount());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        } finally {
+            blocked.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void getCostsAsync_ReleasesPermit_IfCancelledWhileQueued() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            Allocator allocator = new Allocator("{\"large\": 1, \"8xlarge\": 16}", "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}}",
+                    AllocatorConfig.builder().asyncExecutor(executor).maxInFlight(2).build());
+            executor.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            for (int i = 0; i < 10; i++) { // more cancellations than permits, each queued behind the blocked task
+                CompletableFuture<String> queued = allocator.getCostsAsync(24, 115, null);
+                assertTrue(queued.cancel(false));
+                assertEquals(0, allocator.getInFlightCount());
+            }
+            CompletableFuture<String> first = allocator.getCostsAsync(24, 115, null);
+            CompletableFuture<String> second = allocator.getCostsAsync(8, null, 29.0);
+            assertEquals(2, allocator.getInFlightCount());
+
+            blocked.countDown();
+            assertEquals(allocator.getCosts(24, 115, null), first.get(10, TimeUnit.SECONDS));
+            assertEquals(allocator.getCosts(8, null, 29.0), second.get(10, TimeUnit.SECONDS));
+            executor.submit(() -> null).get(10, TimeUnit.SECONDS);
+            assertEquals(0, allocator.getInFlightCount());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        } finally {
+            blocked.countDown();
+            executor.shutdown();
+        }
+    }
+
+}
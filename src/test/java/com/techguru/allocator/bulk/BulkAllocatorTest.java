@@ -0,0 +1,54 @@
+package com.techguru.allocator.bulk;
+
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.pojo.BulkConfig;
+import com.techguru.allocator.pojo.BulkReport;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class BulkAllocatorTest {
+
+    private static final String SERVER_TYPES_JSON = "{\"large\": 1, \"xlarge\": 2, \"8xlarge\": 16}";
+    private static final String REGION_COST_PERHOUR_JSON = "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}, \"asia\": {\"large\": 0.11, \"xlarge\": 0.2}}";
+
+    @Test
+    void run_SameAsGetCostsInInputOrder_IfChunkedOnWorkers() {
+        try {
+            Allocator allocator = new Allocator(SERVER_TYPES_JSON, REGION_COST_PERHOUR_JSON);
+            StringBuilder requests = new StringBuilder();
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                if (i % 97 == 0) {
+                    requests.append("{\"cpus\": ").append(i).append("}\n");
+                    expected.add("{\"error\":\"Hours cannot be null\"}");
+                } else if (i % 101 == 0) {
+                    requests.append("not json\n\n");
+                    expected.add("{\"error\":\"Not a valid request\"}");
+                } else if (i % 2 == 0) {
+                    requests.append("{\"hours\": ").append(i % 24 + 1).append(", \"cpus\": ").append(i).append("}\n");
+                    expected.add(allocator.getCosts(i % 24 + 1, i, null));
+                } else {
+                    requests.append("{\"hours\": 8, \"cpus\": ").append(i).append(", \"price\": ").append(i / 10.0).append("}\n");
+                    expected.add(allocator.getCosts(8, i, i / 10.0));
+                }
+            }
+            BulkAllocator bulkAllocator = new BulkAllocator(allocator, BulkConfig.builder().workers(3).chunkSize(7).maxChunksInFlight(2).build());
+            StringWriter results = new StringWriter();
+            BulkReport report = bulkAllocator.run(new StringReader(requests.toString()), results);
+
+            assertEquals(String.join("\n", expected) + "\n", results.toString());
+            assertEquals(1000, report.getRequests());
+            assertEquals(20, report.getErrors());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.techguru.allocator.catalog;
+
+import com.techguru.allocator.exception.AllocatorException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CatalogTest {
+
+    private static final String SERVER_TYPES_JSON = "{\"large\": 1, \"xlarge\": 2, \"4xlarge\": 8, \"8xlarge\": 16}";
+    private static final String REGION_COST_PERHOUR_JSON = "{\"us-east\": {\"large\": 0.12, \"xlarge\": 0.23, \"8xlarge\": 1.4}, \"asia\": {\"large\": 0.11, \"4xlarge\": 0.67}}";
+
+    private static Catalog read() throws AllocatorException {
+        return CatalogReader.read(new StringReader(SERVER_TYPES_JSON), new StringReader(REGION_COST_PERHOUR_JSON), 0);
+    }
+
+    @Test
+    void read_SortsRegionsByCostPerHourPerCpu() throws AllocatorException {
+        Catalog catalog = read();
+        RegionCatalog usEast = catalog.getRegion(catalog.getRegionOrdinal("us-east"));
+        assertEquals("8xlarge", catalog.getServerTypeName(usEast.getServerType(0)));
+        assertEquals("xlarge", catalog.getServerTypeName(usEast.getServerType(1)));
+        assertEquals("large", catalog.getServerTypeName(usEast.getServerType(2)));
+    }
+
+    @Test
+    void read_ThrowsException_IfRegionIsDuplicated() {
+        String regionCostPerHourJson = "{\"us-east\": {\"large\": 0.12}, \"asia\": {\"large\": 0.11}, \"us-east\": {\"xlarge\": 0.23}}";
+        AllocatorException e = assertThrows(AllocatorException.class, () -> CatalogReader.read(new StringReader(SERVER_TYPES_JSON), new StringReader(regionCostPerHourJson), 0));
+        assertEquals("Not a valid json", e.getMessage());
+    }
+
+    @Test
+    void withPrices_ResortsOnlyChangedRegions() throws AllocatorException {
+        Catalog catalog = read();
+        Map<String, Double> usEastChanges = new HashMap<>();
+        usEastChanges.put("8xlarge", 2.0);
+        usEastChanges.put("4xlarge", 0.8);
+        usEastChanges.put("xlarge", null);
+        Catalog updated = catalog.withPrices(Collections.singletonMap("us-east", usEastChanges));
+
+        assertEquals(catalog.getVersion() + 1, updated.getVersion());
+        assertSame(catalog.getRegion(catalog.getRegionOrdinal("asia")), updated.getRegion(updated.getRegionOrdinal("asia")));
+        RegionCatalog usEast = updated.getRegion(updated.getRegionOrdinal("us-east"));
+        assertNotSame(catalog.getRegion(catalog.getRegionOrdinal("us-east")), usEast);
+        assertEquals(3, usEast.size());
+        assertEquals("4xlarge", updated.getServerTypeName(usEast.getServerType(0)));
+        assertEquals("large", updated.getServerTypeName(usEast.getServerType(1)));
+        assertEquals("8xlarge", updated.getServerTypeName(usEast.getServerType(2)));
+        assertEquals(3, catalog.getRegion(catalog.getRegionOrdinal("us-east")).size());
+    }
+
+    @Test
+    void withPrices_ThrowsException_IfServerTypeIsInvalid() throws AllocatorException {
+        Catalog catalog = read();
+        assertThrows(AllocatorException.class, () -> catalog.withPrices(Collections.singletonMap("asia", Collections.singletonMap("16xlarge", 3.0))));
+    }
+
+    @Test
+    void map_SameAsCompiledCatalog_IfWrittenToCatalogFile(@TempDir Path tempDir) throws AllocatorException {
+        Path catalogFile = tempDir.resolve("catalog.bin");
+        CatalogFile.compile(new StringReader(SERVER_TYPES_JSON), new StringReader(REGION_COST_PERHOUR_JSON), catalogFile);
+        Catalog catalog = read();
+        Catalog mapped = CatalogFile.map(catalogFile, 0);
+
+        assertEquals(catalog.getServerTypeCount(), mapped.getServerTypeCount());
+        assertEquals(catalog.getRegionCount(), mapped.getRegionCount());
+        assertEquals(catalog.getEntryCount(), mapped.getEntryCount());
+        for (int t = 0; t < catalog.getServerTypeCount(); t++) {
+            assertEquals(catalog.getServerTypeName(t), mapped.getServerTypeName(t));
+            assertEquals(catalog.getServerTypeCpus(t), mapped.getServerTypeCpus(t));
+        }
+        for (int r = 0; r < catalog.getRegionCount(); r++) {
+            assertEquals(catalog.getRegionName(r), mapped.getRegionName(r));
+            assertEquals(catalog.getRegionByCostPerCpu(r), mapped.getRegionByCostPerCpu(r));
+            RegionCatalog region = catalog.getRegion(r);
+            RegionCatalog mappedRegion = mapped.getRegion(r);
+            assertEquals(region.size(), mappedRegion.size());
+            assertEquals(region.getMinCpus(), mappedRegion.getMinCpus());
+            for (int i = 0; i < region.size(); i++) {
+                assertEquals(region.getServerType(i), mappedRegion.getServerType(i));
+                assertEquals(region.getCpus(i), mappedRegion.getCpus(i));
+                assertEquals(region.getPrice(i), mappedRegion.getPrice(i));
+            }
+        }
+        assertEquals(1, mapped.getRegionOrdinal("asia"));
+        assertNull(mapped.getRegion(0).getOptimalTable());
+        assertNotNull(CatalogFile.map(catalogFile, 64).getRegion(0).getOptimalTable());
+    }
+
+    @Test
+    void map_ThrowsException_IfNotCatalogFile(@TempDir Path tempDir) throws IOException {
+        Path catalogFile = Files.write(tempDir.resolve("catalog.bin"), SERVER_TYPES_JSON.getBytes(StandardCharsets.UTF_8));
+        assertThrows(AllocatorException.class, () -> CatalogFile.map(catalogFile, 0));
+        assertThrows(AllocatorException.class, () -> CatalogFile.map(tempDir.resolve("missing.bin"), 0));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.techguru.allocator.server;
+
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.pojo.LoadTestReport;
+import com.techguru.allocator.pojo.ServerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class AllocatorServerTest {
+
+    private static final String SERVER_TYPES_JSON = "{\"large\": 1, \"xlarge\": 2, \"8xlarge\": 16}";
+    private static final String REGION_COST_PERHOUR_JSON = "{\"us-east\": {\"large\": 0.12, \"8xlarge\": 1.4}, \"asia\": {\"large\": 0.11, \"xlarge\": 0.2}}";
+
+    @Test
+    void costs_SameAsGetCosts_IfRequestsBatched() {
+        AllocatorServer server = null;
+        try {
+            Allocator allocator = new Allocator(SERVER_TYPES_JSON, REGION_COST_PERHOUR_JSON);
+            server = new AllocatorServer(allocator, ServerConfig.builder().port(0).workers(8).batchWindowMicros(2000).build());
+            server.start();
+            URI baseUri = URI.create("http://localhost:" + server.getPort());
+            HttpClient client = HttpClient.newHttpClient();
+
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int cpus = 1; cpus <= 40; cpus++) {
+                responses.add(client.sendAsync(HttpRequest.newBuilder(baseUri.resolve("/costs?hours=24&cpus=" + cpus)).build(), HttpResponse.BodyHandlers.ofString()));
+            }
+            for (int cpus = 1; cpus <= 40; cpus++) {
+                HttpResponse<String> response = responses.get(cpus - 1).get();
+                assertEquals(200, response.statusCode());
+                assertEquals(allocator.getCosts(24, cpus, null), response.body());
+            }
+            HttpResponse<String> invalid = client.send(HttpRequest.newBuilder(baseUri.resolve("/costs?cpus=4")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, invalid.statusCode());
+            assertEquals("{\"error\":\"Hours cannot be null\"}", invalid.body());
+            HttpResponse<String> cheapest = client.send(HttpRequest.newBuilder(baseUri.resolve("/cheapest?hours=8&price=29.0&k=1")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(allocator.getCheapestRegions(8, null, 29.0, 1), cheapest.body());
+
+            LoadTestReport report = new LoadTestClient(baseUri).run(Arrays.asList("hours=24&cpus=115", "hours=8&price=29.0"), 4, 25);
+            assertEquals(100, report.getRequests());
+            assertEquals(0, report.getErrors());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        } finally {
+            if (server != null) server.stop(0);
+        }
+    }
+
+}
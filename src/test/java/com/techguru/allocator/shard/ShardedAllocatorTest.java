@@ -0,0 +1,148 @@
+package com.techguru.allocator.shard;
+
+import com.techguru.allocator.Allocator;
+import com.techguru.allocator.exception.AllocatorException;
+import com.techguru.allocator.pojo.AllocatorConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ShardedAllocatorTest {
+
+    private static final String SERVER_TYPES_JSON = "{\"large\": 1, \"xlarge\": 2, \"2xlarge\": 4, \"4xlarge\": 8, \"8xlarge\": 16, \"10xlarge\": 32}";
+
+    private static String regionCostPerHourJson(int regions) {
+        StringBuilder json = new StringBuilder("{");
+        for (int r = 0; r < regions; r++) {
+            if (r > 0) json.append(',');
+            json.append("\"region-").append(r).append("\": {\"xlarge\": ").append(0.21 + r % 17 * 0.013)
+                    .append(", \"4xlarge\": ").append(0.70 + r % 11 * 0.021).append(", \"10xlarge\": ").append(2.80 + r % 13 * 0.047).append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    @Test
+    void getCosts_SameAsSingleAllocator_IfShardedInProcess() {
+        String regionCostPerHourJson = regionCostPerHourJson(50);
+        try (ShardedAllocator sharded = ShardedAllocator.inProcess(SERVER_TYPES_JSON, regionCostPerHourJson, 3, AllocatorConfig.builder().build(), 5000);
+             ShardedAllocator oversharded = ShardedAllocator.inProcess(SERVER_TYPES_JSON, "{\"asia\": {\"large\": 0.11}}", 4, AllocatorConfig.builder().build(), 5000)) {
+            Allocator allocator = new Allocator(SERVER_TYPES_JSON, regionCostPerHourJson);
+            assertEquals(allocator.getCosts(24, 115, null), sharded.getCosts(24, 115, null));
+            assertEquals(allocator.getCosts(8, null, 29.0), sharded.getCosts(8, null, 29.0));
+            assertEquals(allocator.getCosts(7, 214, 95.0), sharded.getCosts(7, 214, 95.0));
+            assertEquals(new Allocator(SERVER_TYPES_JSON, "{\"asia\": {\"large\": 0.11}}").getCosts(24, 115, null), oversharded.getCosts(24, 115, null));
+            AllocatorException e = assertThrows(AllocatorException.class, () -> sharded.getCosts(null, 115, null));
+            assertEquals("Hours cannot be null", e.getMessage());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void getCosts_SameAsSingleAllocator_IfShardedOverSockets() {
+        String regionCostPerHourJson = regionCostPerHourJson(50);
+        List<ShardServer> servers = new ArrayList<>();
+        List<RemoteShard> shards = new ArrayList<>();
+        try {
+            for (String shardJson : ShardedAllocator.partition(regionCostPerHourJson, 2)) {
+                ShardServer server = new ShardServer(new Allocator(SERVER_TYPES_JSON, shardJson), 0);
+                server.start();
+                servers.add(server);
+                shards.add(new RemoteShard("localhost", server.getPort(), 5000));
+            }
+            Allocator allocator = new Allocator(SERVER_TYPES_JSON, regionCostPerHourJson);
+            try (ShardedAllocator sharded = new ShardedAllocator(shards, 5000)) {
+                for (int i = 0; i < 3; i++) {
+                    assertEquals(allocator.getCosts(24, 115, null), sharded.getCosts(24, 115, null));
+                    assertEquals(allocator.getCosts(7, 214, 95.0), sharded.getCosts(7, 214, 95.0));
+                }
+                AllocatorException e = assertThrows(AllocatorException.class, () -> sharded.getCosts(24, null, null));
+                assertEquals("Cpus and Price cannot be null", e.getMessage());
+            }
+
+            Shard slow = (hours, cpus, price) -> new CompletableFuture<>();
+            try (ShardedAllocator sharded = new ShardedAllocator(Arrays.asList(new RemoteShard("localhost", servers.get(0).getPort(), 5000), slow), 100)) {
+                AllocatorException e = assertThrows(AllocatorException.class, () -> sharded.getCosts(24, 115, null));
+                assertTrue(e.getMessage().startsWith("Shard 1"));
+            }
+        } catch (Exception e) {
+            fail(e.getMessage());
+        } finally {
+            for (ShardServer server : servers) server.stop();
+        }
+    }
+
+    /**
+     * Binds a new shard server on the port of a stopped one, which is released once its accept thread has woken up
+     */
+    private static ShardServer restart(Allocator allocator, int port) throws AllocatorException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return new ShardServer(allocator, port);
+            } catch (AllocatorException e) {
+                if (attempt == 100) throw e;
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    @Test
+    void getCosts_RetriedOnNewConnection_IfShardServerRestarted() {
+        ShardServer server = null;
+        try (RemoteShard shard = new RemoteShard("localhost", 0, 5000)) {
+            Allocator allocator = new Allocator(SERVER_TYPES_JSON, regionCostPerHourJson(5));
+            server = new ShardServer(allocator, 0);
+            server.start();
+            int port = server.getPort();
+            try (ShardedAllocator sharded = new ShardedAllocator(Collections.singletonList(new RemoteShard("localhost", port, 5000)), 5000)) {
+                assertEquals(allocator.getCosts(24, 115, null), sharded.getCosts(24, 115, null));
+                server.stop();
+                server = restart(allocator, port);
+                server.start();
+                assertEquals(allocator.getCosts(7, 214, 95.0), sharded.getCosts(7, 214, 95.0));
+            }
+
+            Shard unreachable = (hours, cpus, price) -> fail("Invalid request sent to a shard");
+            try (ShardedAllocator sharded = new ShardedAllocator(Arrays.asList(shard, unreachable), 5000)) {
+                AllocatorException e = assertThrows(AllocatorException.class, () -> sharded.getCosts(24, null, null));
+                assertEquals("Cpus and Price cannot be null", e.getMessage());
+            }
+        } catch (Exception e) {
+            fail(e.getMessage());
+        } finally {
+            if (server != null) server.stop();
+        }
+    }
+
+    @Test
+    void shard_SkipsRegionsOfOtherShards() {
+        //The regions of the other shards price an unknown server type, so the load fails if any of them is built
+        String regionCostPerHourJson = "{\"r0\": {\"bogus\": 0.1}, \"r1\": {\"bogus\": [1, {\"x\": true}]}, \"r2\": {\"xlarge\": 0.21, \"4xlarge\": 0.7}, "
+                + "\"r3\": {\"10xlarge\": 2.8}, \"r4\": {\"bogus\": null}, \"r5\": {\"bogus\": \"0.1\"}}";
+        try {
+            int regionCount = ShardedAllocator.countRegions(new StringReader(regionCostPerHourJson));
+            assertEquals(6, regionCount);
+            String shardJson = ShardedAllocator.shard(new StringReader(regionCostPerHourJson), regionCount, 1, 3);
+            assertEquals("{\"r2\":{\"xlarge\":0.21,\"4xlarge\":0.7},\"r3\":{\"10xlarge\":2.8}}", shardJson);
+            Allocator shard = new Allocator(SERVER_TYPES_JSON, shardJson);
+            assertEquals(new Allocator(SERVER_TYPES_JSON, "{\"r2\": {\"xlarge\": 0.21, \"4xlarge\": 0.7}, \"r3\": {\"10xlarge\": 2.8}}").getCosts(24, 115, null), shard.getCosts(24, 115, null));
+            AllocatorException e = assertThrows(AllocatorException.class, () -> ShardedAllocator.shard(new StringReader(regionCostPerHourJson), regionCount, 3, 3));
+            assertEquals("Invalid shard index 3", e.getMessage());
+            e = assertThrows(AllocatorException.class, () -> ShardedAllocator.partition("[\"r0\"]", 2));
+            assertEquals("Not a valid json", e.getMessage());
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
+}